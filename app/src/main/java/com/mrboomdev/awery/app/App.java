@@ -80,6 +80,7 @@ import com.mrboomdev.awery.BuildConfig;
 import com.mrboomdev.awery.R;
 import com.mrboomdev.awery.app.data.db.item.DBCatalogList;
 import com.mrboomdev.awery.ext.Platform;
+import com.mrboomdev.awery.ext.data.Progress;
 import com.mrboomdev.awery.extensions.ExtensionsFactory;
 import com.mrboomdev.awery.extensions.data.CatalogList;
 import com.mrboomdev.awery.extensions.support.aweryjs.AweryJsManager;
@@ -546,11 +547,7 @@ public class App extends Application {
 			var manager = extensionsFactory.getManager(AweryJsManager.class);
 
 			if(manager != null) {
-				var runtime = manager.jsRuntime.getIfInitialized();
-
-				if(runtime != null) {
-					runtime.lowMemoryNotification();
-				}
+				manager.lowMemoryNotification();
 			}
 		}
 	}
@@ -693,14 +690,24 @@ public class App extends Application {
 
 	@NonNull
 	public static Dialog showLoadingWindow() {
+		return showLoadingWindow(null);
+	}
+
+	/**
+	 * @param progress If not null, then it's value will be shown, until the window will be dismissed.
+	 *                 While the max is unknown, the indicator is indeterminate.
+	 */
+	@NonNull
+	public static Dialog showLoadingWindow(@Nullable Progress progress) {
 		var context = getAnyContext();
 
 		var wrapper = new LinearLayoutCompat(context);
 		wrapper.setGravity(Gravity.CENTER);
 
-		var progress = new CircularProgressIndicator(context);
-		progress.setIndeterminate(true);
-		wrapper.addView(progress);
+		var indicator = new CircularProgressIndicator(context);
+		indicator.setIndeterminate(true);
+		indicator.setMax(1000);
+		wrapper.addView(indicator);
 
 		var dialog = new AlertDialog.Builder(context)
 				.setCancelable(false)
@@ -708,6 +715,23 @@ public class App extends Application {
 				.show();
 
 		requireNonNull(dialog.getWindow()).setBackgroundDrawable(null);
+
+		if(progress != null) {
+			indicator.post(new Runnable() {
+				@Override
+				public void run() {
+					if(!dialog.isShowing()) return;
+
+					if(progress.getMax() > 0) {
+						indicator.setIndeterminate(false);
+						indicator.setProgressCompat((int) (progress.getProgress() * 1000 / progress.getMax()), true);
+					}
+
+					indicator.postDelayed(this, 200);
+				}
+			});
+		}
+
 		return dialog;
 	}
 }
\ No newline at end of file
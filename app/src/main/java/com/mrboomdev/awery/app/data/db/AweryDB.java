@@ -16,9 +16,13 @@ import com.mrboomdev.awery.app.data.db.dao.FeedsDao;
 import com.mrboomdev.awery.app.data.db.dao.ListsDao;
 import com.mrboomdev.awery.app.data.db.dao.MediaDao;
 import com.mrboomdev.awery.app.data.db.dao.MediaProgressDao;
+import com.mrboomdev.awery.app.data.db.dao.ProviderHealthDao;
 import com.mrboomdev.awery.app.data.db.dao.RepositoryDao;
 import com.mrboomdev.awery.app.data.db.dao.TabsDao;
 import com.mrboomdev.awery.app.data.db.item.DBCatalogList;
+import com.mrboomdev.awery.app.data.db.item.DBListMembership;
+import com.mrboomdev.awery.app.data.db.item.DBMediaFts;
+import com.mrboomdev.awery.app.data.db.item.DBProviderHealth;
 import com.mrboomdev.awery.app.data.db.item.DBTab;
 import com.mrboomdev.awery.ext.source.Repository;
 import com.mrboomdev.awery.ext.data.Media;
@@ -27,7 +31,7 @@ import com.mrboomdev.awery.extensions.data.CatalogMediaProgress;
 
 @TypeConverters(AweryDBConverters.class)
 @Database(
-		version = 6,
+		version = 10,
 
 		autoMigrations = {
 				@AutoMigration(from = 1, to = 2),
@@ -40,7 +44,10 @@ import com.mrboomdev.awery.extensions.data.CatalogMediaProgress;
 				Repository.class,
 				DBTab.class,
 				CatalogFeed.class,
-				CatalogMediaProgress.class
+				CatalogMediaProgress.class,
+				DBListMembership.class,
+				DBMediaFts.class,
+				DBProviderHealth.class
 		}
 ) public abstract class AweryDB extends RoomDatabase {
 	private static AweryDB db;
@@ -56,7 +63,8 @@ import com.mrboomdev.awery.extensions.data.CatalogMediaProgress;
 			}
 
 			db = Room.databaseBuilder(getAppContext(), AweryDB.class, "db")
-					.addMigrations(MIGRATION_2_3, MIGRATION_3_4, MIGRATION_5_6)
+					.addMigrations(MIGRATION_2_3, MIGRATION_3_4, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10)
+					.addCallback(CALLBACK)
 					.build();
 		}
 
@@ -75,6 +83,17 @@ import com.mrboomdev.awery.extensions.data.CatalogMediaProgress;
 
 	public abstract MediaProgressDao getMediaProgressDao();
 
+	public abstract ProviderHealthDao getProviderHealthDao();
+
+	private static final Callback CALLBACK = new Callback() {
+		@Override
+		public void onOpen(@NonNull SupportSQLiteDatabase db) {
+			// Media is being inserted with the REPLACE strategy, which deletes old rows without
+			// running delete triggers by default. So the full-text index would get stale docids.
+			db.execSQL("PRAGMA recursive_triggers = ON");
+		}
+	};
+
 	public static final Migration MIGRATION_2_3 = new Migration(2, 3) {
 		@Override
 		public void migrate(@NonNull SupportSQLiteDatabase db) {
@@ -173,4 +192,87 @@ import com.mrboomdev.awery.extensions.data.CatalogMediaProgress;
 			db.execSQL("ALTER TABLE repository_new RENAME TO repository");
 		}
 	};
-}
\ No newline at end of file
+
+	/**
+	 * Lists of each media are being copied from a ";;;"-joined column into a separate table.
+	 */
+	public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+		@Override
+		public void migrate(@NonNull SupportSQLiteDatabase db) {
+			db.execSQL("""
+				CREATE TABLE IF NOT EXISTS `media_list_membership`(
+					`list_id` TEXT NOT NULL, `global_id` TEXT NOT NULL, `added_at` INTEGER NOT NULL,
+					PRIMARY KEY(`list_id`, `global_id`))""");
+
+			db.execSQL("""
+				CREATE INDEX IF NOT EXISTS `index_media_list_membership_global_id_list_id`
+				ON `media_list_membership` (`global_id`, `list_id`)""");
+
+			db.execSQL("""
+				CREATE INDEX IF NOT EXISTS `index_media_list_membership_list_id_added_at`
+				ON `media_list_membership` (`list_id`, `added_at`)""");
+
+			// We don't know when the media was added, so the order of rows is being used instead.
+			// Later rows get later times, a second apart, so that lists won't be sorted only by ids.
+			db.execSQL("""
+				INSERT OR IGNORE INTO media_list_membership(list_id, global_id, added_at)
+				
+				WITH RECURSIVE split(global_id, row_id, position, item, rest) AS (
+					SELECT global_id, rowid, 0, '', lists || ';;;' FROM media_progress WHERE lists IS NOT NULL
+					UNION ALL
+					SELECT global_id, row_id, position + 1, substr(rest, 1, instr(rest, ';;;') - 1), substr(rest, instr(rest, ';;;') + 3)
+					FROM split WHERE instr(rest, ';;;') > 0
+				)
+				
+				SELECT item, global_id, CAST(strftime('%s', 'now') AS INTEGER) * 1000
+					- ((SELECT MAX(rowid) FROM media_progress) - row_id) * 1000 - position
+				FROM split WHERE item != ''""");
+		}
+	};
+
+	/**
+	 * Creates the full-text index with the same triggers as the Room does and fills it with existing media.
+	 */
+	public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+		@Override
+		public void migrate(@NonNull SupportSQLiteDatabase db) {
+			db.execSQL("""
+				CREATE VIRTUAL TABLE IF NOT EXISTS `media_fts` USING FTS4(
+					`titles` TEXT, `description` TEXT, `genres` TEXT, `tags` TEXT,
+					tokenize=unicode61, content=`media`)""");
+
+			for(var event : new String[] { "UPDATE", "DELETE" }) {
+				db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_media_fts_BEFORE_" + event
+						+ " BEFORE " + event + " ON `media` BEGIN DELETE FROM `media_fts` WHERE `docid`=OLD.`rowid`; END");
+			}
+
+			for(var event : new String[] { "UPDATE", "INSERT" }) {
+				db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_media_fts_AFTER_" + event
+						+ " AFTER " + event + " ON `media` BEGIN INSERT INTO `media_fts`(`docid`, `titles`, `description`, "
+						+ "`genres`, `tags`) VALUES (NEW.`rowid`, NEW.`titles`, NEW.`description`, NEW.`genres`, NEW.`tags`); END");
+			}
+
+			db.execSQL("INSERT INTO `media_fts`(`media_fts`) VALUES('rebuild')");
+		}
+	};
+
+	public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+		@Override
+		public void migrate(@NonNull SupportSQLiteDatabase db) {
+			db.execSQL("""
+				CREATE TABLE IF NOT EXISTS `provider_health`(
+					`provider_id` TEXT NOT NULL, `operation` TEXT NOT NULL, `success_rate` REAL NOT NULL,
+					`calls` INTEGER NOT NULL, `failures` INTEGER NOT NULL, `latencies` BLOB,
+					`p50` INTEGER NOT NULL, `p95` INTEGER NOT NULL, `last_failure` TEXT,
+					`last_failure_at` INTEGER NOT NULL, `updated_at` INTEGER NOT NULL,
+					PRIMARY KEY(`provider_id`, `operation`))""");
+		}
+	};
+
+	public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+		@Override
+		public void migrate(@NonNull SupportSQLiteDatabase db) {
+			db.execSQL("ALTER TABLE `media_progress` ADD COLUMN `resolved_ids` TEXT");
+		}
+	};
+}
@@ -1,7 +1,6 @@
 package com.mrboomdev.awery.app.data.db;
 
 import static com.mrboomdev.awery.app.App.toast;
-import static com.mrboomdev.awery.util.NiceUtils.stream;
 
 import android.util.Log;
 
@@ -13,6 +12,7 @@ import com.mrboomdev.awery.ext.data.ExternalService;
 import com.mrboomdev.awery.ext.data.ImageType;
 import com.mrboomdev.awery.ext.data.User;
 import com.mrboomdev.awery.sdk.util.StringUtils;
+import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.Types;
 
@@ -23,12 +23,28 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-import java9.util.stream.Collectors;
-
 @SuppressWarnings("unused")
 class AweryDBConverters {
 	private static final String TAG = "AweryDBConverters";
 
+	/**
+	 * Creating an adapter does reflect over the whole class, so we do it only once
+	 * instead of doing so for every row.
+	 */
+	private static final Moshi MOSHI = new Moshi.Builder().build();
+	private static final JsonAdapter<User[]> USERS_ADAPTER = MOSHI.adapter(User[].class);
+	private static final JsonAdapter<ExternalService[]> EXTERNAL_SERVICES_ADAPTER = MOSHI.adapter(ExternalService[].class);
+	private static final JsonAdapter<SettingsList> SETTINGS_LIST_ADAPTER = MOSHI.adapter(SettingsList.class);
+
+	private static final JsonAdapter<Map<String, String>> STRING_MAP_ADAPTER =
+			MOSHI.adapter(Types.newParameterizedType(Map.class, String.class, String.class));
+
+	private static final JsonAdapter<Map<Float, Long>> FLOAT_LONG_MAP_ADAPTER =
+			MOSHI.adapter(Types.newParameterizedType(Map.class, Float.class, Long.class));
+
+	private static final JsonAdapter<Map<ImageType, String>> IMAGE_TYPE_STRING_MAP_ADAPTER =
+			MOSHI.adapter(Types.newParameterizedType(Map.class, ImageType.class, String.class));
+
 	@NonNull
 	@TypeConverter
 	public List<String> deserializeStringList(String value) {
@@ -47,10 +63,8 @@ class AweryDBConverters {
 			return new User[0];
 		}
 
-		var adapter = new Moshi.Builder().build().adapter(User[].class);
-
 		try {
-			return adapter.fromJson(value);
+			return USERS_ADAPTER.fromJson(value);
 		} catch(IOException e) {
 			toast("Your data has been corrupted! Sorry, but we can't do anything with it :(");
 			Log.e(TAG, "Failed to parse string to array", e);
@@ -64,9 +78,7 @@ class AweryDBConverters {
 			return null;
 		}
 
-		return new Moshi.Builder().build()
-				.adapter(User[].class)
-				.toJson(users);
+		return USERS_ADAPTER.toJson(users);
 	}
 
 	@TypeConverter
@@ -75,10 +87,8 @@ class AweryDBConverters {
 			return new ExternalService[0];
 		}
 
-		var adapter = new Moshi.Builder().build().adapter(ExternalService[].class);
-
 		try {
-			return adapter.fromJson(value);
+			return EXTERNAL_SERVICES_ADAPTER.fromJson(value);
 		} catch(IOException e) {
 			toast("Your data has been corrupted! Sorry, but we can't do anything with it :(");
 			Log.e(TAG, "Failed to parse string to array", e);
@@ -92,9 +102,7 @@ class AweryDBConverters {
 			return null;
 		}
 
-		return new Moshi.Builder().build()
-				.adapter(ExternalService[].class)
-				.toJson(users);
+		return EXTERNAL_SERVICES_ADAPTER.toJson(users);
 	}
 
 	@NonNull
@@ -115,11 +123,8 @@ class AweryDBConverters {
 			return Collections.emptyMap();
 		}
 
-		var adapter = new Moshi.Builder().build().<Map<String, String>>
-				adapter(Types.newParameterizedType(Map.class, String.class, String.class));
-
 		try {
-			return adapter.fromJson(value);
+			return STRING_MAP_ADAPTER.fromJson(value);
 		} catch(IOException e) {
 			toast("Your data has been corrupted! Sorry, but we can't do anything with it :(");
 			Log.e(TAG, "Failed to parse string to map", e);
@@ -129,9 +134,7 @@ class AweryDBConverters {
 
 	@TypeConverter
 	public String serializeStringMap(@NonNull Map<String, String> value) {
-		return stream(value.entrySet())
-				.map(entry -> "\"" + entry.getKey() + "\":\"" + entry.getValue() + "\"")
-				.collect(Collectors.joining(",", "{", "}"));
+		return STRING_MAP_ADAPTER.toJson(value);
 	}
 
 	@TypeConverter
@@ -140,10 +143,8 @@ class AweryDBConverters {
 			return new SettingsList();
 		}
 
-		var adapter = new Moshi.Builder().build().adapter(SettingsList.class);
-
 		try {
-			return adapter.fromJson(value);
+			return SETTINGS_LIST_ADAPTER.fromJson(value);
 		} catch(IOException e) {
 			toast("Your data has been corrupted! Sorry, but we can't do anything with it :(");
 			Log.e(TAG, "Failed to parse string to map", e);
@@ -154,7 +155,7 @@ class AweryDBConverters {
 	@NonNull
 	@TypeConverter
 	public String serializeSettingsList(SettingsList value) {
-		return new Moshi.Builder().build().adapter(SettingsList.class).toJson(value);
+		return SETTINGS_LIST_ADAPTER.toJson(value);
 	}
 
 	@TypeConverter
@@ -163,11 +164,8 @@ class AweryDBConverters {
 			return Collections.emptyMap();
 		}
 
-		var adapter = new Moshi.Builder().build().<Map<Float, Long>>
-				adapter(Types.newParameterizedType(Map.class, Float.class, Long.class));
-
 		try {
-			return adapter.fromJson(value);
+			return FLOAT_LONG_MAP_ADAPTER.fromJson(value);
 		} catch(IOException e) {
 			toast("Your data has been corrupted! Sorry, but we can't do anything with it :(");
 			Log.e(TAG, "Failed to parse string to map", e);
@@ -175,6 +173,11 @@ class AweryDBConverters {
 		}
 	}
 
+	@TypeConverter
+	public String serializeFloatLongMap(@NonNull Map<Float, Long> value) {
+		return FLOAT_LONG_MAP_ADAPTER.toJson(value);
+	}
+
 	@TypeConverter
 	public String serializeLong(Long value) {
 		return value != null ? value.toString() : null;
@@ -191,11 +194,8 @@ class AweryDBConverters {
 			return Collections.emptyMap();
 		}
 
-		var adapter = new Moshi.Builder().build().<Map<ImageType, String>>
-				adapter(Types.newParameterizedType(Map.class, ImageType.class, String.class));
-
 		try {
-			return adapter.fromJson(value);
+			return IMAGE_TYPE_STRING_MAP_ADAPTER.fromJson(value);
 		} catch(IOException e) {
 			toast("Your data has been corrupted! Sorry, but we can't do anything with it :(");
 			Log.e(TAG, "Failed to parse string to map", e);
@@ -203,18 +203,9 @@ class AweryDBConverters {
 		}
 	}
 
-	@TypeConverter
-	public String serializeFloatLongMap(@NonNull Map<Float, Long> value) {
-		return stream(value.entrySet())
-				.map(entry -> "\"" + entry.getKey() + "\":" + entry.getValue())
-				.collect(Collectors.joining(",", "{", "}"));
-	}
-
 	@TypeConverter
 	public String serializeImageTypeStringMap(@NonNull Map<ImageType, String> value) {
-		return stream(value.entrySet())
-				.map(entry -> "\"" + entry.getKey() + "\":\"" + entry.getValue() + "\"")
-				.collect(Collectors.joining(",", "{", "}"));
+		return IMAGE_TYPE_STRING_MAP_ADAPTER.toJson(value);
 	}
 
 	@TypeConverter
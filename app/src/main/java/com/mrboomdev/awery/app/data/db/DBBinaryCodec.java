@@ -0,0 +1,51 @@
+package com.mrboomdev.awery.app.data.db;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A compact binary form of columns which are being updated often and have a fixed shape.
+ * <p>Format of the ints: a version byte, a count of entries and then each int. All numbers are big-endian.</p>
+ */
+public class DBBinaryCodec {
+	private static final byte VERSION = 1;
+
+	@NonNull
+	public static byte[] encodeInts(@NonNull int[] values) {
+		var buffer = ByteBuffer.allocate(1 + 4 + values.length * 4);
+		buffer.put(VERSION);
+		buffer.putInt(values.length);
+
+		for(var value : values) {
+			buffer.putInt(value);
+		}
+
+		return buffer.array();
+	}
+
+	/**
+	 * @return Null if the data is in an unknown format
+	 */
+	@Nullable
+	public static int[] decodeInts(@NonNull byte[] data) {
+		if(data.length < 5 || data[0] != VERSION) {
+			return null;
+		}
+
+		var buffer = ByteBuffer.wrap(data);
+		buffer.get();
+
+		var count = buffer.getInt();
+		if(count < 0 || buffer.remaining() != count * 4) return null;
+
+		var result = new int[count];
+
+		for(int i = 0; i < count; i++) {
+			result[i] = buffer.getInt();
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,67 @@
+package com.mrboomdev.awery.app.data.db;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Walks over a whole table by small pages, so that bulk operations like an export
+ * won't hold all rows in the memory at once. Each page is being requested by the last item
+ * of the previous one (a keyset), so that the database doesn't skip rows like it does with an OFFSET.
+ */
+public class DBPageIterator<T> implements Iterator<T>, Iterable<T> {
+	private final PageLoader<T> loader;
+	private final int pageSize;
+	private List<T> page;
+	private T last;
+	private int index;
+	private boolean isLastPage;
+
+	/**
+	 * @param loader Must return items which do go after the passed one in a stable order.
+	 *               The passed item is null for the first page.
+	 */
+	public DBPageIterator(int pageSize, @NonNull PageLoader<T> loader) {
+		this.pageSize = pageSize;
+		this.loader = loader;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if(page != null && index < page.size()) {
+			return true;
+		}
+
+		if(isLastPage) {
+			return false;
+		}
+
+		page = loader.load(last, pageSize);
+		index = 0;
+		isLastPage = page.size() < pageSize;
+		return !page.isEmpty();
+	}
+
+	@Override
+	public T next() {
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		last = page.get(index++);
+		return last;
+	}
+
+	@NonNull
+	@Override
+	public Iterator<T> iterator() {
+		return this;
+	}
+
+	public interface PageLoader<T> {
+		List<T> load(@Nullable T last, int limit);
+	}
+}
@@ -15,6 +15,12 @@ public interface FeedsDao {
 	@Query("SELECT * FROM feed WHERE tab = :tabId")
 	List<CatalogFeed> getAllFromTab(String tabId);
 
+	/**
+	 * @param afterId Id of the last feed from the previous page or an empty string for the first page.
+	 */
+	@Query("SELECT * FROM feed WHERE tab = :tabId AND id > :afterId ORDER BY id LIMIT :limit")
+	List<CatalogFeed> getPageFromTab(String tabId, String afterId, int limit);
+
 	@Insert
 	void insert(CatalogFeed feed);
 
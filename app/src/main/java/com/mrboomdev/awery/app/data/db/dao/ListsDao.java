@@ -16,6 +16,12 @@ public interface ListsDao {
 	@Query("SELECT * FROM list")
 	List<DBCatalogList> getAll();
 
+	/**
+	 * @param afterId Id of the last list from the previous page or an empty string for the first page.
+	 */
+	@Query("SELECT * FROM list WHERE id > :afterId ORDER BY id LIMIT :limit")
+	List<DBCatalogList> getPage(String afterId, int limit);
+
 	@Query("SELECT * FROM list WHERE id = :id")
 	DBCatalogList get(String id);
 
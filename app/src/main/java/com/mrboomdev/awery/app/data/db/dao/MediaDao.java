@@ -6,11 +6,16 @@ import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.RawQuery;
+import androidx.room.Transaction;
 import androidx.room.Update;
 import androidx.sqlite.db.SupportSQLiteQuery;
 
+import com.mrboomdev.awery.app.data.db.DBPageIterator;
+import com.mrboomdev.awery.app.data.db.item.DBMediaFts;
+import com.mrboomdev.awery.app.data.db.item.DBMediaWithProgress;
 import com.mrboomdev.awery.ext.data.Media;
 
+import java.util.Collections;
 import java.util.List;
 
 @Dao
@@ -22,8 +27,27 @@ public interface MediaDao {
 	@Update
 	void update(Media... catalogMedia);
 
-	@Query("SELECT * FROM media WHERE titles LIKE :query OR description LIKE :query")
-	List<Media> find(String query);
+	/**
+	 * Searches media by words which do start with the words of the query.
+	 * Media whose titles do match are being returned first, then the ones matched by other fields.
+	 */
+	default List<Media> find(String query, int limit, int offset) {
+		var anyQuery = DBMediaFts.toPrefixQuery(query, null);
+		if(anyQuery == null) return Collections.emptyList();
+
+		return findByFts(DBMediaFts.toPrefixQuery(query, "titles"), anyQuery, limit, offset);
+	}
+
+	@Query("""
+			SELECT media.* FROM media INNER JOIN (
+				SELECT docid, 0 AS rank FROM media_fts WHERE media_fts MATCH :titlesQuery
+				UNION ALL
+				SELECT docid, 1 AS rank FROM media_fts WHERE media_fts MATCH :anyQuery
+			) AS found ON media.rowid = found.docid
+			GROUP BY media.global_id
+			ORDER BY MIN(found.rank), media.rowid DESC
+			LIMIT :limit OFFSET :offset""")
+	List<Media> findByFts(String titlesQuery, String anyQuery, int limit, int offset);
 
 	@Query("SELECT * FROM media WHERE global_id = :id")
 	Media get(String id);
@@ -31,6 +55,57 @@ public interface MediaDao {
 	@Query("SELECT * FROM media WHERE global_id IN (:ids)")
 	List<Media> getAllByIds(List<String> ids);
 
+	/**
+	 * @return Media in the list with their progresses, starting from the last added one.
+	 */
+	@Transaction
+	@Query("""
+			SELECT media.*, media_list_membership.added_at FROM media_list_membership
+			INNER JOIN media ON media.global_id = media_list_membership.global_id
+			WHERE media_list_membership.list_id = :list
+			ORDER BY media_list_membership.added_at DESC, media_list_membership.global_id DESC""")
+	List<DBMediaWithProgress> getAllFromList(String list);
+
+	/**
+	 * Same as {@link #getAllFromList(String)}, but returns only the items added before the passed one.
+	 * Pass {@link Long#MAX_VALUE} and an empty string to get the first page.
+	 */
+	@Transaction
+	@Query("""
+			SELECT media.*, media_list_membership.added_at FROM media_list_membership
+			INNER JOIN media ON media.global_id = media_list_membership.global_id
+			WHERE media_list_membership.list_id = :list AND (media_list_membership.added_at < :beforeAddedAt
+				OR (media_list_membership.added_at = :beforeAddedAt AND media_list_membership.global_id < :beforeGlobalId))
+			ORDER BY media_list_membership.added_at DESC, media_list_membership.global_id DESC
+			LIMIT :limit""")
+	List<DBMediaWithProgress> getPageFromList(String list, long beforeAddedAt, String beforeGlobalId, int limit);
+
+	/**
+	 * Use it only if you don't know the last item of the previous page,
+	 * because the database has to walk over all skipped rows.
+	 */
+	@Transaction
+	@Query("""
+			SELECT media.*, media_list_membership.added_at FROM media_list_membership
+			INNER JOIN media ON media.global_id = media_list_membership.global_id
+			WHERE media_list_membership.list_id = :list
+			ORDER BY media_list_membership.added_at DESC, media_list_membership.global_id DESC
+			LIMIT :limit OFFSET :offset""")
+	List<DBMediaWithProgress> getPageFromListByOffset(String list, int limit, int offset);
+
+	/**
+	 * @param afterGlobalId Id of the last media from the previous page or an empty string for the first page.
+	 */
+	@Query("SELECT * FROM media WHERE global_id > :afterGlobalId ORDER BY global_id LIMIT :limit")
+	List<Media> getPage(String afterGlobalId, int limit);
+
+	/**
+	 * Iterates over all saved media without loading them at once. Use it for bulk operations like an export.
+	 */
+	default Iterable<Media> iterateAll() {
+		return new DBPageIterator<>(500, (last, limit) -> getPage(last != null ? last.getGlobalId() : "", limit));
+	}
+
 	@RawQuery
 	List<Media> getAllByQuery(SupportSQLiteQuery query);
 
@@ -4,20 +4,131 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 
+import com.mrboomdev.awery.app.data.db.item.DBListMembership;
 import com.mrboomdev.awery.extensions.data.CatalogMediaProgress;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
 @Dao
 public interface MediaProgressDao {
 
+	/**
+	 * Also updates memberships of the media in lists.
+	 */
+	@Transaction
+	default void insert(CatalogMediaProgress progress) {
+		insertProgress(progress);
+
+		var lists = progress.lists != null ? progress.lists : List.<String>of();
+		var memberships = new ArrayList<DBListMembership>(lists.size());
+		var now = System.currentTimeMillis();
+
+		for(var list : lists) {
+			memberships.add(new DBListMembership(list, progress.globalId, now));
+		}
+
+		deleteMembershipsExcept(progress.globalId, lists);
+		insertMemberships(memberships);
+	}
+
 	@Insert(onConflict = OnConflictStrategy.REPLACE)
-	void insert(CatalogMediaProgress progress);
+	void insertProgress(CatalogMediaProgress progress);
+
+	/**
+	 * Remembers what the user did watch the last time. The media is also being remembered as the resolved one,
+	 * so that an older automatic match won't replace it. The row is being read and written in a single transaction,
+	 * so that fields changed by someone else at the same time won't be lost.
+	 */
+	@Transaction
+	default void saveLastWatched(String globalId, String sourceId, String sourceGlobalId, String mediaId, String mediaTitle) {
+		var progress = get(globalId);
+		if(progress == null) progress = new CatalogMediaProgress(globalId);
+
+		progress.lastWatchSource = sourceId;
+		progress.lastId = mediaId;
+		progress.lastTitle = mediaTitle;
+		progress.resolvedIds = progress.resolvedIds != null ? new HashMap<>(progress.resolvedIds) : new HashMap<>();
+		progress.resolvedIds.put(sourceGlobalId, mediaId);
+		insert(progress);
+	}
+
+	/**
+	 * Same as {@link #saveLastWatched(String, String, String, String, String)},
+	 * but only the found media of the source is being remembered.
+	 */
+	@Transaction
+	default void saveResolvedId(String globalId, String sourceGlobalId, String mediaId) {
+		var progress = get(globalId);
+		if(progress == null) progress = new CatalogMediaProgress(globalId);
+
+		progress.resolvedIds = progress.resolvedIds != null ? new HashMap<>(progress.resolvedIds) : new HashMap<>();
+		progress.resolvedIds.put(sourceGlobalId, mediaId);
+		insert(progress);
+	}
+
+	/**
+	 * @param progress -1 if the episode was watched completely, 0 if it wasn't watched at all.
+	 */
+	@Transaction
+	default void saveEpisodeProgress(String globalId, float episodeNumber, long progress) {
+		var mediaProgress = get(globalId);
+		if(mediaProgress == null) mediaProgress = new CatalogMediaProgress(globalId);
+
+		mediaProgress.progresses.put(episodeNumber, progress);
+		insert(mediaProgress);
+	}
+
+	/**
+	 * Existing memberships are being ignored, so that their time won't be changed.
+	 */
+	@Insert(onConflict = OnConflictStrategy.IGNORE)
+	void insertMemberships(List<DBListMembership> memberships);
+
+	@Query("DELETE FROM media_list_membership WHERE global_id = :globalId AND list_id NOT IN (:lists)")
+	void deleteMembershipsExcept(String globalId, List<String> lists);
 
 	@Query("SELECT * FROM media_progress WHERE global_id = :globalId")
 	CatalogMediaProgress get(String globalId);
 
-	@Query("SELECT * FROM media_progress WHERE lists LIKE '%;;;' || :list || ';;;%'")
+	/**
+	 * Don't pass more than 999 ids at once, because old versions of SQLite don't support more arguments.
+	 */
+	@Query("SELECT * FROM media_progress WHERE global_id IN (:globalIds)")
+	List<CatalogMediaProgress> getAll(List<String> globalIds);
+
+	/**
+	 * @return Media in the list, starting from the last added one.
+	 */
+	@Query("""
+			SELECT media_progress.* FROM media_list_membership
+			INNER JOIN media_progress ON media_progress.global_id = media_list_membership.global_id
+			WHERE media_list_membership.list_id = :list
+			ORDER BY media_list_membership.added_at DESC""")
 	List<CatalogMediaProgress> getAllFromList(String list);
-}
\ No newline at end of file
+
+	/**
+	 * Same as {@link #getAllFromList(String)}, but returns only the items added before the passed one.
+	 * Pass {@link Long#MAX_VALUE} and an empty string to get the first page.
+	 */
+	@Query("""
+			SELECT media_progress.* FROM media_list_membership
+			INNER JOIN media_progress ON media_progress.global_id = media_list_membership.global_id
+			WHERE media_list_membership.list_id = :list AND (media_list_membership.added_at < :beforeAddedAt
+				OR (media_list_membership.added_at = :beforeAddedAt AND media_list_membership.global_id < :beforeGlobalId))
+			ORDER BY media_list_membership.added_at DESC, media_list_membership.global_id DESC
+			LIMIT :limit""")
+	List<CatalogMediaProgress> getPageFromList(String list, long beforeAddedAt, String beforeGlobalId, int limit);
+
+	@Query("SELECT global_id FROM media_list_membership WHERE list_id = :list")
+	List<String> getGlobalIdsFromList(String list);
+
+	@Query("SELECT COUNT(*) FROM media_list_membership WHERE list_id = :list")
+	int getCountInList(String list);
+
+	@Query("SELECT EXISTS(SELECT 1 FROM media_list_membership WHERE list_id = :list AND global_id = :globalId)")
+	boolean isInList(String list, String globalId);
+}
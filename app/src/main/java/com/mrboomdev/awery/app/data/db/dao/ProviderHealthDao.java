@@ -0,0 +1,23 @@
+package com.mrboomdev.awery.app.data.db.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.mrboomdev.awery.app.data.db.item.DBProviderHealth;
+
+import java.util.List;
+
+@Dao
+public interface ProviderHealthDao {
+
+	@Query("SELECT * FROM provider_health")
+	List<DBProviderHealth> getAll();
+
+	@Query("SELECT * FROM provider_health WHERE provider_id = :providerId AND operation = :operation")
+	DBProviderHealth get(String providerId, String operation);
+
+	@Insert(onConflict = OnConflictStrategy.REPLACE)
+	void insert(DBProviderHealth health);
+}
@@ -16,6 +16,12 @@ public interface TabsDao {
 	@Query("SELECT * from tab")
 	List<DBTab> getAllTabs();
 
+	/**
+	 * @param afterId Id of the last tab from the previous page or an empty string for the first page.
+	 */
+	@Query("SELECT * from tab WHERE id > :afterId ORDER BY id LIMIT :limit")
+	List<DBTab> getTabsPage(String afterId, int limit);
+
 	@Insert(onConflict = OnConflictStrategy.REPLACE)
 	void insert(DBTab... tabs);
 
@@ -0,0 +1,36 @@
+package com.mrboomdev.awery.app.data.db.item;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * A single media in a single list. It is a copy of {@link com.mrboomdev.awery.extensions.data.CatalogMediaProgress#lists},
+ * which is being kept in sync by the {@link com.mrboomdev.awery.app.data.db.dao.MediaProgressDao},
+ * so that lists can be read by an index instead of matching strings.
+ */
+@Entity(
+		tableName = "media_list_membership",
+		primaryKeys = { "list_id", "global_id" },
+
+		indices = {
+				@Index(value = { "global_id", "list_id" }),
+				@Index(value = { "list_id", "added_at" })
+		}
+) public class DBListMembership {
+	@ColumnInfo(name = "list_id")
+	@NonNull
+	public String listId;
+	@ColumnInfo(name = "global_id")
+	@NonNull
+	public String globalId;
+	@ColumnInfo(name = "added_at")
+	public long addedAt;
+
+	public DBListMembership(@NonNull String listId, @NonNull String globalId, long addedAt) {
+		this.listId = listId;
+		this.globalId = globalId;
+		this.addedAt = addedAt;
+	}
+}
@@ -0,0 +1,44 @@
+package com.mrboomdev.awery.app.data.db.item;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+import com.mrboomdev.awery.ext.data.Media;
+
+/**
+ * A full-text index over the {@link Media}. It doesn't store the text itself,
+ * but reads it from the media table, which is kept in sync by triggers created by the Room.
+ */
+@Fts4(contentEntity = Media.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "media_fts")
+public class DBMediaFts {
+	@PrimaryKey
+	@ColumnInfo(name = "rowid")
+	public int rowId;
+	public String titles, description, genres, tags;
+
+	/**
+	 * Converts an user input into a prefix query, so that "one pie" will find "One Piece".
+	 * All special characters are being dropped, so the input can't break the query.
+	 * @param column If not null, then only this column will be searched.
+	 * @return Null if there is nothing to search for
+	 */
+	@Nullable
+	public static String toPrefixQuery(@NonNull String input, @Nullable String column) {
+		var builder = new StringBuilder();
+
+		for(var word : input.split("[^\\p{L}\\p{N}]+")) {
+			if(word.isEmpty()) continue;
+			if(builder.length() > 0) builder.append(' ');
+			if(column != null) builder.append(column).append(':');
+			builder.append(word).append('*');
+		}
+
+		return builder.length() > 0 ? builder.toString() : null;
+	}
+}
@@ -0,0 +1,28 @@
+package com.mrboomdev.awery.app.data.db.item;
+
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Embedded;
+import androidx.room.Relation;
+
+import com.mrboomdev.awery.ext.data.Media;
+import com.mrboomdev.awery.extensions.data.CatalogMediaProgress;
+
+/**
+ * Room does load progresses of all media by a single query, so there is no need to request them one by one.
+ */
+public class DBMediaWithProgress {
+	@Embedded
+	public Media media;
+
+	/**
+	 * Time at which the media was added into the list. Null if it wasn't selected by the query.
+	 */
+	@Nullable
+	@ColumnInfo(name = "added_at")
+	public Long addedAt;
+
+	@Nullable
+	@Relation(parentColumn = "global_id", entityColumn = "global_id")
+	public CatalogMediaProgress progress;
+}
@@ -0,0 +1,108 @@
+package com.mrboomdev.awery.app.data.db.item;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+import com.mrboomdev.awery.app.data.db.DBBinaryCodec;
+
+import java.util.Arrays;
+
+/**
+ * How well a single operation of a provider did work lately.
+ * Used to try healthy and fast providers first, so that broken ones won't make the user wait.
+ */
+@Entity(
+		tableName = "provider_health",
+		primaryKeys = { "provider_id", "operation" }
+) public class DBProviderHealth {
+	/**
+	 * Weight of the latest call in the success rate.
+	 */
+	private static final float SUCCESS_RATE_WEIGHT = .2f;
+	private static final int MAX_LATENCIES = 32;
+
+	/**
+	 * Global id of the provider.
+	 */
+	@ColumnInfo(name = "provider_id")
+	@NonNull
+	public String providerId;
+	@NonNull
+	public String operation;
+	/**
+	 * From 0 to 1. Recent calls do matter more than old ones.
+	 */
+	@ColumnInfo(name = "success_rate")
+	public float successRate = 1;
+	public int calls, failures;
+	/**
+	 * Latencies of the latest successful calls in milliseconds, from the oldest to the newest.
+	 */
+	public byte[] latencies;
+	public long p50, p95;
+	@ColumnInfo(name = "last_failure")
+	public String lastFailure;
+	@ColumnInfo(name = "last_failure_at")
+	public long lastFailureAt;
+	@ColumnInfo(name = "updated_at")
+	public long updatedAt;
+
+	public DBProviderHealth(@NonNull String providerId, @NonNull String operation) {
+		this.providerId = providerId;
+		this.operation = operation;
+	}
+
+	/**
+	 * Not thread-safe. Synchronize on this object while calling it.
+	 * @param failure Null if the call has succeeded
+	 */
+	public void record(long latencyMs, @Nullable String failure) {
+		var now = System.currentTimeMillis();
+		calls++;
+		updatedAt = now;
+		successRate += ((failure == null ? 1 : 0) - successRate) * SUCCESS_RATE_WEIGHT;
+
+		if(failure != null) {
+			failures++;
+			lastFailure = failure;
+			lastFailureAt = now;
+			return;
+		}
+
+		var old = getLatencies();
+		var next = Arrays.copyOfRange(old, Math.max(0, old.length - MAX_LATENCIES + 1), old.length + 1);
+		next[next.length - 1] = (int) Math.min(Integer.MAX_VALUE, Math.max(0, latencyMs));
+		latencies = DBBinaryCodec.encodeInts(next);
+
+		var sorted = next.clone();
+		Arrays.sort(sorted);
+		p50 = percentile(sorted, 50);
+		p95 = percentile(sorted, 95);
+	}
+
+	@NonNull
+	public int[] getLatencies() {
+		if(latencies == null) return new int[0];
+
+		var result = DBBinaryCodec.decodeInts(latencies);
+		return result != null ? result : new int[0];
+	}
+
+	/**
+	 * A higher value means that the provider should be tried earlier.
+	 * A provider which answers in 5 seconds does have a half of the score of an instant one.
+	 * @return From 0 to 1
+	 */
+	public float getScore() {
+		return successRate / (1 + p50 / 5000f);
+	}
+
+	private static long percentile(@NonNull int[] sorted, int percent) {
+		if(sorted.length == 0) return 0;
+
+		var index = (int) Math.ceil(percent / 100d * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+}
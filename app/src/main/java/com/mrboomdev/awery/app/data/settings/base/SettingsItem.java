@@ -18,6 +18,7 @@ import com.mrboomdev.awery.R;
 import com.mrboomdev.awery.app.App;
 import com.mrboomdev.awery.app.data.settings.SettingsActions;
 import com.mrboomdev.awery.app.data.settings.SettingsData;
+import com.mrboomdev.awery.ext.data.Media;
 import com.mrboomdev.awery.ext.data.Setting;
 import com.mrboomdev.awery.sdk.util.exceptions.InvalidSyntaxException;
 import com.mrboomdev.awery.util.Parser;
@@ -170,7 +171,7 @@ public class SettingsItem implements Serializable, ObservableSettingsItem {
 			}
 
 			if(getSerializable() != null) {
-				return getSerializable();
+				return getJsSerializable();
 			}
 
 			if(getExcludableValue() != null) {
@@ -186,7 +187,7 @@ public class SettingsItem implements Serializable, ObservableSettingsItem {
 			case INTEGER, SELECT_INTEGER, COLOR -> getIntegerValue();
 			case DATE -> getLongValue();
 			case MULTISELECT -> getStringSetValue();
-			case SERIALIZABLE -> getSerializable();
+			case SERIALIZABLE -> getJsSerializable();
 
 			case EXCLUDABLE -> getExcludableValue() == null
 					? null : getExcludableValue().name();
@@ -199,6 +200,14 @@ public class SettingsItem implements Serializable, ObservableSettingsItem {
 		return serializable;
 	}
 
+	/**
+	 * Scripts cannot read java objects, so the media is being serialized only for them.
+	 */
+	private Object getJsSerializable() {
+		return getSerializable() instanceof Media media
+				? Parser.toString(Media.class, media) : getSerializable();
+	}
+
 	public void setValue(Serializable serializable) {
 		this.serializable = serializable;
 	}
@@ -295,6 +304,18 @@ public class SettingsItem implements Serializable, ObservableSettingsItem {
 		}
 	}
 	
+	/**
+	 * Objects passed within the app are being returned as is, so that nothing is being serialized.
+	 * Json is being parsed only if the value did come from somewhere else.
+	 */
+	public <T> T getValue(Class<T> clazz) throws IOException {
+		if(clazz.isInstance(getSerializable())) {
+			return clazz.cast(getSerializable());
+		}
+
+		return parseJsonValue(clazz);
+	}
+
 	public <T> T parseJsonValue(Class<T> clazz) throws IOException {
 		return Parser.fromString(clazz, getStringValue());
 	}
@@ -25,6 +25,8 @@ import com.mrboomdev.awery.util.Parser;
 import com.mrboomdev.awery.util.async.AsyncFuture;
 import com.mrboomdev.awery.util.exceptions.CancelledException;
 import com.mrboomdev.awery.util.exceptions.ZeroResultsException;
+import com.mrboomdev.awery.util.io.DownloadProgress;
+import com.mrboomdev.awery.util.io.FileUtil;
 import com.mrboomdev.awery.util.io.HttpClient;
 import com.mrboomdev.awery.util.io.HttpRequest;
 import com.mrboomdev.awery.util.ui.dialog.DialogBuilder;
@@ -52,12 +54,20 @@ public class UpdatesManager {
 				.setMessage(update.title() + "\nSize: " + formatFileSize(update.size()) + "\n\n" + update.body())
 				.setNeutralButton("Dismiss", DialogBuilder::dismiss)
 				.setPositiveButton("Install", dialog -> {
-					var window = showLoadingWindow();
+					var progress = new DownloadProgress();
+					var window = showLoadingWindow(progress);
+
+					// The name is always the same, so that only a single apk is being kept.
+					// An interrupted download is resumed only if it was of the same url.
 					var file = new File(context.getCacheDir(), "download/app_update.apk");
+					deleteOldUpdates(file);
 
-					HttpClient.download(new HttpRequest(update.fileUrl()), file).addCallback(new AsyncFuture.Callback<>() {
+					HttpClient.download(new HttpRequest(update.fileUrl()), file, progress).addCallback(new AsyncFuture.Callback<>() {
 						@Override
 						public void onSuccess(File result) {
+							Log.i(TAG, "Update was downloaded with an average speed of "
+									+ formatFileSize(progress.getBytesPerSecond()) + "/s");
+
 							var intent = new Intent(Intent.ACTION_VIEW);
 							intent.putExtra(Intent.EXTRA_RETURN_RESULT, true);
 							intent.putExtra(Intent.EXTRA_NOT_UNKNOWN_SOURCE, true);
@@ -105,11 +115,11 @@ public class UpdatesManager {
 			}
 
 			var release = switch(BuildConfig.CHANNEL) {
-				case STABLE, ALPHA -> Parser.fromString(GitHubRelease.class, response.getText());
+				case STABLE, ALPHA -> response.parseJson(GitHubRelease.class);
 
 				case BETA -> {
-					var releases = Parser.<List<GitHubRelease>>fromString(
-							Parser.getAdapter(List.class, GitHubRelease.class), response.getText());
+					var releases = response.parseJson(
+							Parser.<List<GitHubRelease>>getAdapter(List.class, GitHubRelease.class));
 
 					yield stream(releases).filter(me -> me.prerelease).findFirst()
 							.orElseThrow(() -> new ZeroResultsException("No beta versions was found."));
@@ -130,6 +140,20 @@ public class UpdatesManager {
 		});
 	}
 
+	/**
+	 * Older versions did name updates by their urls, so each one was left in the cache.
+	 */
+	private static void deleteOldUpdates(@NonNull File current) {
+		var parent = current.getParentFile();
+		if(parent == null) return;
+
+		for(var file : FileUtil.listFiles(parent)) {
+			if(file.getName().startsWith("app_update_")) {
+				FileUtil.deleteFile(file);
+			}
+		}
+	}
+
 	@NonNull
 	private static String parseAlphaVersion(@NonNull String full) {
 		var prodIndex = full.indexOf("-stable-");
@@ -2,7 +2,6 @@ package com.mrboomdev.awery.extensions;
 
 import static com.mrboomdev.awery.app.App.toast;
 import static com.mrboomdev.awery.util.NiceUtils.stream;
-import static com.mrboomdev.awery.util.async.AsyncUtils.await;
 import static com.mrboomdev.awery.util.async.AsyncUtils.thread;
 
 import android.util.Log;
@@ -10,22 +9,37 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.mrboomdev.awery.ext.source.ExtensionsManager;
 import com.mrboomdev.awery.ext.data.Progress;
+import com.mrboomdev.awery.ext.source.Extension;
+import com.mrboomdev.awery.ext.source.ExtensionsManager;
 import com.mrboomdev.awery.extensions.support.yomi.aniyomi.AniyomiManager;
+import com.mrboomdev.awery.generated.AwerySettings;
 import com.mrboomdev.awery.util.NiceUtils;
 import com.mrboomdev.awery.util.async.AsyncFuture;
+import com.mrboomdev.awery.util.async.AsyncLane;
 import com.mrboomdev.awery.util.async.AsyncUtils;
+import com.mrboomdev.awery.util.async.ControllableAsyncFuture;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class ExtensionsFactory {
 	private static final String TAG = "ExtensionsFactory";
-	private static ExtensionsFactory instance;
+	private static final Object loadLock = new Object();
+	private static final Map<String, Extension> loadedExtensions = new HashMap<>();
+	private static final Map<String, List<ControllableAsyncFuture<Extension>>> pendingExtensions = new HashMap<>();
+	private static final List<ExtensionsManager.LoadListener> loadListeners = new CopyOnWriteArrayList<>();
+	private static volatile ExtensionsFactory instance;
 	private static AsyncFuture<ExtensionsFactory> pendingFuture;
+	private static boolean isLoaded;
 	protected static final Progress progress = new Progress();
 	private final Set<ExtensionsManager> managers = new HashSet<>();
 
@@ -42,21 +56,159 @@ public class ExtensionsFactory {
 		return managers;
 	}
 
+	/**
+	 * The instance is being set before all extensions were loaded,
+	 * so the future is being kept even after it's done, instead of returning the instance.
+	 */
 	@NonNull
-	public static AsyncFuture<ExtensionsFactory> getInstance() {
-		if(instance != null) {
-			return AsyncUtils.futureNow(instance);
+	public static synchronized AsyncFuture<ExtensionsFactory> getInstance() {
+		if(pendingFuture == null) {
+			pendingFuture = thread(() -> new ExtensionsFactory());
 		}
 
-		if(pendingFuture != null) {
-			return pendingFuture;
+		return pendingFuture;
+	}
+
+	/**
+	 * Resolves as soon as the requested extension was loaded, so that a screen which needs only
+	 * a single extension won't wait for all other ones. Starts loading of the factory if it wasn't started yet.
+	 * The returned extension may have an error, so check it before using.
+	 * Fails with {@link NoSuchElementException} if all extensions were loaded, but this one wasn't found.
+	 */
+	@NonNull
+	public static AsyncFuture<Extension> getExtension(@NonNull String managerId, @NonNull String extensionId) {
+		var key = getExtensionKey(managerId, extensionId);
+		var future = new ControllableAsyncFuture<Extension>();
+
+		synchronized(loadLock) {
+			if(isLoaded) {
+				try {
+					var extension = instance.getManager(managerId).getExtension(extensionId);
+
+					if(extension == null) {
+						throw new NoSuchElementException("No extension \"" + extensionId + "\" was found!");
+					}
+
+					return AsyncUtils.futureNow(extension);
+				} catch(NoSuchElementException e) {
+					return AsyncUtils.futureFailNow(e);
+				}
+			}
+
+			var loaded = loadedExtensions.get(key);
+
+			if(loaded != null) {
+				return AsyncUtils.futureNow(loaded);
+			}
+
+			var list = pendingExtensions.get(key);
+
+			if(list == null) {
+				list = new ArrayList<>();
+				pendingExtensions.put(key, list);
+			}
+
+			list.add(future);
+		}
+
+		getInstance();
+		return future;
+	}
+
+	/**
+	 * Listener will be called for each extension after it was loaded.
+	 * Extensions which were loaded before this call will be passed to it right now.
+	 * Listener is being called under a lock, so it must return quickly.
+	 */
+	public static void addLoadListener(@NonNull ExtensionsManager.LoadListener listener) {
+		synchronized(loadLock) {
+			loadListeners.add(listener);
+
+			if(instance == null) {
+				return;
+			}
+
+			for(var manager : instance.managers) {
+				for(var extension : manager.getAllExtensions()) {
+					if(loadedExtensions.containsKey(getExtensionKey(manager.getId(), extension.getId()))) {
+						listener.onExtensionLoaded(manager, extension);
+					}
+				}
+			}
 		}
+	}
 
-		return pendingFuture = thread(() -> {
-			var instance = new ExtensionsFactory();
-			pendingFuture = null;
-			return instance;
-		});
+	public static void removeLoadListener(@NonNull ExtensionsManager.LoadListener listener) {
+		loadListeners.remove(listener);
+	}
+
+	private static void publishExtension(@NonNull ExtensionsManager manager, @NonNull Extension extension) {
+		List<ControllableAsyncFuture<Extension>> waiting;
+
+		synchronized(loadLock) {
+			var key = getExtensionKey(manager.getId(), extension.getId());
+			loadedExtensions.put(key, extension);
+			waiting = pendingExtensions.remove(key);
+
+			for(var listener : loadListeners) {
+				listener.onExtensionLoaded(manager, extension);
+			}
+		}
+
+		if(waiting != null) {
+			for(var future : waiting) {
+				future.complete(extension);
+			}
+		}
+	}
+
+	@NonNull
+	private static String getExtensionKey(@NonNull String managerId, @NonNull String extensionId) {
+		return managerId + ";;;" + extensionId;
+	}
+
+	/**
+	 * @return How many extensions can be loaded at the same time.
+	 */
+	public static int getLoadParallelism() {
+		var value = AwerySettings.EXTENSIONS_LOAD_PARALLELISM.getValue(0);
+		return (value == null || value <= 0) ? AsyncLane.EXTENSION.getMaxThreads() : value;
+	}
+
+	/**
+	 * Runs the loader for every item on the {@link AsyncLane#EXTENSION} lane,
+	 * but not more than {@link #getLoadParallelism()} items at the same time.
+	 * Blocks until all items were processed. If the loader throws, then the exception is being logged
+	 * and other items are still being processed.
+	 */
+	public static <T> void loadConcurrently(@NonNull Collection<T> items, @NonNull AsyncFuture.Callable1<T> loader) {
+		var queue = new ConcurrentLinkedQueue<>(items);
+		var workers = Math.min(getLoadParallelism(), items.size());
+		var pendingWorkers = new ArrayList<AsyncFuture<Void>>(workers);
+
+		for(int i = 0; i < workers; i++) {
+			pendingWorkers.add(thread(AsyncLane.EXTENSION, () -> {
+				T item;
+
+				while((item = queue.poll()) != null) {
+					try {
+						loader.run(item);
+					} catch(Throwable t) {
+						Log.e(TAG, "Failed to load " + item, t);
+					}
+				}
+
+				return null;
+			}));
+		}
+
+		for(var worker : pendingWorkers) {
+			try {
+				worker.await();
+			} catch(Throwable t) {
+				Log.e(TAG, "Loading worker has crashed!", t);
+			}
+		}
 	}
 
 	private ExtensionsFactory() {
@@ -70,21 +222,38 @@ public class ExtensionsFactory {
 		//registerManager(new AweryJsManager());
 		//registerManager(new InternalManager());
 
-		var finishedManagers = new AtomicInteger();
+		var pendingManagers = stream(managers)
+				.map(manager -> thread(AsyncLane.EXTENSION, () -> manager.loadAllExtensions()))
+				.toList();
 
-		for(var manager : managers) {
-			thread(() -> {
-				manager.loadAllExtensions();
-				finishedManagers.addAndGet(1);
-			});
+		for(var pendingManager : pendingManagers) {
+			try {
+				pendingManager.await();
+			} catch(RuntimeException e) {
+				Log.e(TAG, "Failed to load extensions of a manager!", e);
+			}
 		}
 
-		await(() -> finishedManagers.get() == managers.size());
+		var notFound = new ArrayList<ControllableAsyncFuture<Extension>>();
+
+		synchronized(loadLock) {
+			isLoaded = true;
+
+			for(var futures : pendingExtensions.values()) {
+				notFound.addAll(futures);
+			}
+
+			pendingExtensions.clear();
+		}
+
+		for(var future : notFound) {
+			future.fail(new NoSuchElementException("Requested extension wasn't found!"));
+		}
 
 		var failedExtensions = stream(managers)
 				.map(ExtensionsManager::getAllExtensions)
 				.flatMap(NiceUtils::stream)
-				.filter(ext -> ext.getError() == null)
+				.filter(ext -> ext.getError() != null)
 				.toList();
 
 		if(!failedExtensions.isEmpty()) {
@@ -97,10 +266,12 @@ public class ExtensionsFactory {
 	}
 
 	public void registerManager(ExtensionsManager manager) {
+		manager.setLoadListener(ExtensionsFactory::publishExtension);
 		managers.add(manager);
 	}
 
 	public void unregisterManager(ExtensionsManager manager) {
+		manager.setLoadListener(null);
 		managers.remove(manager);
 	}
 
@@ -117,4 +288,4 @@ public class ExtensionsFactory {
 				.filter(manager -> manager.getId().equals(name))
 				.findFirst().orElseThrow();
 	}
-}
\ No newline at end of file
+}
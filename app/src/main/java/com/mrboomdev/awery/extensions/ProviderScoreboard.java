@@ -0,0 +1,172 @@
+package com.mrboomdev.awery.extensions;
+
+import static com.mrboomdev.awery.app.data.db.AweryDB.getDatabase;
+import static com.mrboomdev.awery.util.async.AsyncUtils.thread;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mrboomdev.awery.app.data.db.item.DBProviderHealth;
+import com.mrboomdev.awery.util.async.AsyncFuture;
+import com.mrboomdev.awery.util.async.AsyncLane;
+import com.mrboomdev.awery.util.async.AsyncUtils;
+import com.mrboomdev.awery.util.async.EmptyFuture;
+import com.mrboomdev.awery.util.exceptions.CancelledException;
+import com.mrboomdev.awery.util.exceptions.ZeroResultsException;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers how well each provider did work, so that healthy and fast providers will be tried first
+ * and slow ones won't be waited longer than they usually take.
+ * Everything is being kept in memory and is being written into the database after each call.
+ */
+public class ProviderScoreboard {
+	public static final String SEARCH_MEDIA = "searchMedia";
+	public static final String GET_MEDIA = "getMedia";
+	public static final String GET_VIDEOS = "getVideos";
+	public static final String GET_VIDEO_FILES = "getVideoFiles";
+	private static final String TAG = "ProviderScoreboard";
+	private static final Map<String, DBProviderHealth> entries = new ConcurrentHashMap<>();
+	/**
+	 * Score of providers which weren't used yet. A bit lower than of a good one,
+	 * so that they'll be tried before broken ones, but after working ones.
+	 */
+	private static final float UNKNOWN_SCORE = .75f;
+	private static final int MIN_CALLS_FOR_DEADLINE = 5;
+	private static final long MIN_DEADLINE_MS = 5_000;
+	private static volatile boolean isLoaded;
+
+	/**
+	 * Reads the scoreboard from the database. Blocks the thread, so don't call it from the ui thread!
+	 */
+	public static void load() {
+		if(isLoaded) return;
+
+		synchronized(entries) {
+			if(isLoaded) return;
+
+			for(var health : getDatabase().getProviderHealthDao().getAll()) {
+				entries.putIfAbsent(getKey(health.providerId, health.operation), health);
+			}
+
+			isLoaded = true;
+		}
+	}
+
+	/**
+	 * Calls the provider and records how did it go. If the provider does usually answer quickly,
+	 * but this time it hangs, then the call is being cancelled before the default deadline.
+	 * @param defaultDeadlineMs Used for providers about which we don't know enough yet. Also the maximum deadline.
+	 */
+	@NonNull
+	public static <T> AsyncFuture<T> track(
+			@NonNull __ExtensionProvider provider,
+			@NonNull String operation,
+			long defaultDeadlineMs,
+			@NonNull AsyncFuture<T> call
+	) {
+		var startTime = SystemClock.elapsedRealtime();
+		var future = AsyncUtils.withDeadline(call, getDeadline(provider, operation, defaultDeadlineMs));
+
+		future.addCallback(new AsyncFuture.Callback<>() {
+			@Override
+			public void onSuccess(T result) {
+				record(provider, operation, SystemClock.elapsedRealtime() - startTime, null);
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				// The call was just not needed anymore, so it tells nothing about the provider.
+				if(t instanceof CancelledException) return;
+
+				// The provider did work, but there is nothing.
+				var failure = (t instanceof ZeroResultsException) ? null : t;
+
+				record(provider, operation, SystemClock.elapsedRealtime() - startTime, failure);
+			}
+		});
+
+		return future;
+	}
+
+	private static void record(
+			@NonNull __ExtensionProvider provider,
+			@NonNull String operation,
+			long latencyMs,
+			@Nullable Throwable failure
+	) {
+		thread(AsyncLane.DATABASE, () -> {
+			load();
+
+			var providerId = provider.getGlobalId();
+			var health = entries.computeIfAbsent(getKey(providerId, operation),
+					key -> new DBProviderHealth(providerId, operation));
+
+			// Write under the lock, so that an older state won't overwrite a newer one.
+			synchronized(health) {
+				health.record(latencyMs, failure == null ? null : failure.getClass().getName() + ": " + failure.getMessage());
+				getDatabase().getProviderHealthDao().insert(health);
+			}
+		}).addCallback(new EmptyFuture.Callback() {
+			@Override
+			public void onFailure(Throwable t) {
+				Log.e(TAG, "Failed to record health of " + provider.getName(), t);
+			}
+		});
+	}
+
+	@Nullable
+	public static DBProviderHealth get(@NonNull String providerGlobalId, @NonNull String operation) {
+		return entries.get(getKey(providerGlobalId, operation));
+	}
+
+	/**
+	 * If the scoreboard wasn't loaded yet, then all providers do have the same score.
+	 * @return Average score of the operations from 0 to 1
+	 */
+	public static float getScore(@NonNull String providerGlobalId, @NonNull String... operations) {
+		if(operations.length == 0) return UNKNOWN_SCORE;
+		float sum = 0;
+
+		for(var operation : operations) {
+			var health = get(providerGlobalId, operation);
+			sum += health != null ? health.getScore() : UNKNOWN_SCORE;
+		}
+
+		return sum / operations.length;
+	}
+
+	/**
+	 * Providers with the highest score go first.
+	 */
+	@NonNull
+	public static Comparator<__ExtensionProvider> comparator(@NonNull String... operations) {
+		return (a, b) -> Float.compare(
+				getScore(b.getGlobalId(), operations),
+				getScore(a.getGlobalId(), operations));
+	}
+
+	/**
+	 * @return Thrice the usual slowest time of the provider, but not more than the default one.
+	 */
+	public static long getDeadline(@NonNull __ExtensionProvider provider, @NonNull String operation, long defaultDeadlineMs) {
+		var health = get(provider.getGlobalId(), operation);
+
+		if(health == null || health.calls - health.failures < MIN_CALLS_FOR_DEADLINE) {
+			return defaultDeadlineMs;
+		}
+
+		return Math.min(defaultDeadlineMs, Math.max(MIN_DEADLINE_MS, health.p95 * 3));
+	}
+
+	@NonNull
+	private static String getKey(@NonNull String providerId, @NonNull String operation) {
+		return providerId + "\n" + operation;
+	}
+}
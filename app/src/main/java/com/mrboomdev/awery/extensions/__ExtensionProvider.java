@@ -72,8 +72,7 @@ public abstract class __ExtensionProvider implements Comparable<__ExtensionProvi
 		var extensionId = split2[1];
 
 		try {
-			var manager = ExtensionsFactory.getInstance().await().getManager(managerId);
-			var extension = manager.getExtension(extensionId);
+			var extension = ExtensionsFactory.getExtension(managerId, extensionId).await();
 			return extension.getProvider(providerId);
 		} catch(NoSuchElementException e) {
 			throw new ExtensionNotInstalledException(globalId, e);
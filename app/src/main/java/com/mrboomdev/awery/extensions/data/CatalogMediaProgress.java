@@ -35,6 +35,11 @@ public class CatalogMediaProgress {
 	public List<String> lists = new ArrayList<>();
 	public Map<String, String> trackers = new HashMap<>();
 	public Map<Float, Long> progresses = new HashMap<>();
+	/**
+	 * Global ids of this media in other providers, found by a search. Keys are global ids of providers.
+	 */
+	@ColumnInfo(name = "resolved_ids")
+	public Map<String, String> resolvedIds = new HashMap<>();
 
 	@NonNull
 	public String getGlobalId() {
@@ -53,10 +53,18 @@ public class CatalogVideo implements Serializable, Comparable<CatalogVideo> {
 		return description;
 	}
 
+	public void setDescription(String description) {
+		this.description = description;
+	}
+
 	public String getTitle() {
 		return title;
 	}
 
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
 	public String getUrl() {
 		return url;
 	}
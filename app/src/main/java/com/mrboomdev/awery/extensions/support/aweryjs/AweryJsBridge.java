@@ -55,6 +55,7 @@ public class AweryJsBridge {
 	protected __Extension extension;
 	private static final String TAG = "AweryJsBridge";
 	private final AweryJsManager manager;
+	private final AweryJsRuntime runtime;
 	protected boolean done;
 
 	private final Lazy.Hard<Storage, JavetException> storage = Lazy.createHard(() ->
@@ -63,8 +64,9 @@ public class AweryJsBridge {
 	/** Note: Update every time some big changes do happen to the api **/
 	protected static final int BRIDGE_VERSION = 1;
 
-	public AweryJsBridge(AweryJsManager manager) {
+	public AweryJsBridge(AweryJsManager manager, AweryJsRuntime runtime) {
 		this.manager = manager;
+		this.runtime = runtime;
 	}
 
 	@V8Property
@@ -133,7 +135,7 @@ public class AweryJsBridge {
 				intent.putExtra(LoginActivity.EXTRA_ACTION, LoginActivity.ACTION_OPEN_BROWSER);
 				intent.putExtra(LoginActivity.EXTRA_URL, params.getString("type"));
 
-				startActivityForResult(context, intent, (code, result) -> {
+				startActivityForResult(context, intent, (code, result) -> runtime.runOnJsThread(() -> {
 					try {
 						if(code == Activity.RESULT_OK) {
 							var o = params.getV8Runtime().createV8ValueObject();
@@ -146,7 +148,7 @@ public class AweryJsBridge {
 					} catch(JavetException e) {
 						throw new RuntimeException(e);
 					}
-				});
+				}));
 			}
 
 			case "INPUT_SCREEN" -> promise.reject(params.getV8Runtime().createV8ValueError(
@@ -187,7 +189,7 @@ public class AweryJsBridge {
 			throw new IllegalStateException("You can't add more providers after initialization finished!");
 		}
 
-		providers.add(new AweryJsProvider(manager, provider.toClone()));
+		providers.add(new AweryJsProvider(manager, runtime, provider.toClone()));
 	}
 
 	@SuppressWarnings("unchecked")
@@ -195,7 +197,7 @@ public class AweryJsBridge {
 	public V8ValuePromise fetch(String url, @Nullable Map<String, ?> options) throws JavetException {
 		requireArgument(url, "url");
 
-		var promise = manager.jsRuntime.get().createV8ValuePromise();
+		var promise = runtime.getV8Runtime().createV8ValuePromise();
 		var request = new HttpRequest(url);
 
 		if(options != null) {
@@ -207,23 +209,35 @@ public class AweryJsBridge {
 			request.setBody((String) options.get("body"));
 			request.setForm((Map<String, String>) options.get("form"));
 			request.setHeaders((Map<String, String>) options.get("headers"));
+
+			if(options.get("memoryCache") instanceof Number duration) {
+				var stale = options.get("staleWhileRevalidate") instanceof Number number ? number.intValue() : 0;
+				request.setMemoryCache(duration.intValue(), stale);
+			}
 		}
 
+		// V8 isn't thread-safe, so the promise is being settled on the js thread,
+		// which will also run it's callbacks right after.
 		HttpClient.fetch(request).addCallback(new AsyncFuture.Callback<>() {
 			@Override
 			public void onSuccess(HttpResponse result) {
-				try {
-					promise.resolve(result);
-					//promise.getV8Runtime().await();
-				} catch(JavetException e) {
-					onFailure(e);
-				}
+				runtime.runOnJsThread(() -> {
+					try {
+						promise.resolve(result);
+					} catch(JavetException e) {
+						reject(e);
+					}
+				});
 			}
 
 			@Override
 			public void onFailure(@NonNull Throwable t) {
+				runtime.runOnJsThread(() -> reject(t));
+			}
+
+			private void reject(@NonNull Throwable t) {
 				try {
-					var o = manager.jsRuntime.get().createV8ValueObject();
+					var o = runtime.getV8Runtime().createV8ValueObject();
 					o.set("id", JsException.OTHER);
 					o.set("extra", t.getMessage());
 
@@ -234,7 +248,6 @@ public class AweryJsBridge {
 					}
 
 					promise.reject(o);
-					//promise.getV8Runtime().await();
 				} catch(JavetException e) {
 					throw new RuntimeException(e);
 				}
@@ -0,0 +1,158 @@
+package com.mrboomdev.awery.extensions.support.aweryjs;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.values.reference.V8Script;
+import com.caoccao.javet.values.reference.V8ValueFunction;
+import com.mrboomdev.awery.util.io.FileUtil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores bytecode of compiled scripts, so that V8 won't parse and compile them again on every launch.
+ * Files are being named by a hash of the code and the engine version,
+ * so an update of either of them makes the old file unused. Unused files are being deleted by {@link #trim()}.
+ * If V8 will reject the cached data, then the script is just being compiled from scratch
+ * and the file is being replaced by the new data.
+ */
+public class AweryJsCodeCache {
+	private static final String TAG = "AweryJsCodeCache";
+	private static final String EXTENSION = ".v8cache";
+	private final Set<String> usedKeys = ConcurrentHashMap.newKeySet();
+	private final File directory;
+
+	public AweryJsCodeCache(@NonNull File directory) {
+		this.directory = directory;
+	}
+
+	@NonNull
+	public V8ValueFunction compileFunction(
+			@NonNull V8Runtime runtime,
+			@NonNull String code,
+			@NonNull String resourceName
+	) throws JavetException {
+		var key = getKey(runtime, code);
+		var cachedData = read(key);
+
+		var function = runtime.getExecutor(code)
+				.setResourceName(resourceName)
+				.setCachedData(cachedData)
+				.compileV8ValueFunction();
+
+		update(key, cachedData, function.getCachedData());
+
+		return function;
+	}
+
+	@NonNull
+	public V8Script compileScript(
+			@NonNull V8Runtime runtime,
+			@NonNull String code,
+			@NonNull String resourceName
+	) throws JavetException {
+		var key = getKey(runtime, code);
+		var cachedData = read(key);
+
+		var script = runtime.getExecutor(code)
+				.setResourceName(resourceName)
+				.setCachedData(cachedData)
+				.compileV8Script();
+
+		update(key, cachedData, script.getCachedData());
+
+		return script;
+	}
+
+	/**
+	 * Deletes all files which weren't used since the app was launched.
+	 * Call it only after all scripts were compiled!
+	 */
+	public void trim() {
+		for(var file : FileUtil.listFiles(directory)) {
+			var name = file.getName();
+
+			if(!name.endsWith(EXTENSION)) continue;
+			if(usedKeys.contains(name.substring(0, name.length() - EXTENSION.length()))) continue;
+
+			FileUtil.deleteFile(file);
+		}
+	}
+
+	@NonNull
+	private String getKey(@NonNull V8Runtime runtime, @NonNull String code) throws JavetException {
+		try {
+			var digest = MessageDigest.getInstance("SHA-256");
+			digest.update(runtime.getVersion().getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			digest.update(code.getBytes(StandardCharsets.UTF_8));
+
+			var builder = new StringBuilder();
+
+			for(var b : digest.digest()) {
+				builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+				builder.append(Character.forDigit(b & 0xF, 16));
+			}
+
+			var key = builder.toString();
+			usedKeys.add(key);
+			return key;
+		} catch(NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 isn't supported. How?", e);
+		}
+	}
+
+	@Nullable
+	private byte[] read(@NonNull String key) {
+		var file = new File(directory, key + EXTENSION);
+		if(!file.exists()) return null;
+
+		try {
+			return FileUtil.readBytes(file);
+		} catch(IOException e) {
+			Log.e(TAG, "Failed to read the code cache!", e);
+			FileUtil.deleteFile(file);
+			return null;
+		}
+	}
+
+	/**
+	 * Javet doesn't tell whether the cached data was rejected, but a rejected one is different from the data
+	 * which V8 does produce after the compilation, so that the file is being rewritten only if it's needed.
+	 */
+	private void update(@NonNull String key, @Nullable byte[] oldData, @Nullable byte[] newData) {
+		if(oldData != null && Arrays.equals(oldData, newData)) return;
+
+		if(oldData != null) {
+			Log.i(TAG, "Cached data is outdated, so it'll be replaced. Key: " + key);
+		}
+
+		write(key, newData);
+	}
+
+	private void write(@NonNull String key, @Nullable byte[] data) {
+		if(data == null || data.length == 0) return;
+
+		var file = new File(directory, key + EXTENSION);
+
+		try {
+			FileUtil.createFile(file);
+			FileUtil.writeStream(new FileOutputStream(file), data);
+		} catch(IOException e) {
+			Log.e(TAG, "Failed to write the code cache!", e);
+			FileUtil.deleteFile(file);
+		}
+	}
+}
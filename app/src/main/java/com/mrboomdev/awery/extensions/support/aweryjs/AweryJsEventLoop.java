@@ -0,0 +1,363 @@
+package com.mrboomdev.awery.extensions.support.aweryjs;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import androidx.annotation.Nullable;
+
+import com.caoccao.javet.exceptions.JavetException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A single-threaded loop which does sleep while there is nothing to do
+ * and wakes up after a task was posted or a timer has fired.
+ * After each task the V8 microtask queue of it's runtime is being drained,
+ * so that promise callbacks would be ran without any extra work by the caller.
+ * Multiple runtimes may live on a single loop, but each runtime is always being used by the same loop.
+ */
+public class AweryJsEventLoop {
+	private static final String TAG = "AweryJsEventLoop";
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition hasWork = lock.newCondition();
+	private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+	private final PriorityQueue<Task> timers = new PriorityQueue<>();
+	private final Map<Integer, Task> timersById = new HashMap<>();
+	private final List<Task> droppedTimers = new ArrayList<>();
+	private final AtomicInteger runtimesCount = new AtomicInteger();
+	private final AtomicLong executedTasks = new AtomicLong();
+	private final AtomicLong totalQueueNanos = new AtomicLong(), maxQueueNanos = new AtomicLong();
+	private final AtomicLong totalRunNanos = new AtomicLong(), maxRunNanos = new AtomicLong();
+	private final Thread thread;
+	private long sequence;
+	private int lastTimerId;
+	private boolean isQuit;
+
+	/**
+	 * Starts a new thread which will run the loop until {@link #quit()} will be called.
+	 */
+	public AweryJsEventLoop(@NonNull String threadName, @NonNull Thread.UncaughtExceptionHandler errorHandler) {
+		thread = new Thread(() -> {
+			try {
+				run();
+			} catch(InterruptedException e) {
+				Log.w(TAG, threadName + " was interrupted, so it'll stop.");
+			}
+		}, threadName);
+
+		thread.setUncaughtExceptionHandler(errorHandler);
+		thread.start();
+	}
+
+	public boolean isLoopThread() {
+		return Thread.currentThread() == thread;
+	}
+
+	/**
+	 * Runs the task as soon as possible on the loop thread.
+	 * @param runtime Runtime which microtasks will be drained after the task. May be null.
+	 */
+	public void post(@Nullable AweryJsRuntime runtime, @NonNull Runnable runnable) {
+		lock.lock();
+
+		try {
+			tasks.add(new Task(0, runtime, runnable, null, System.nanoTime(), sequence++));
+			hasWork.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return An id which can be used to cancel the timer by {@link #cancelTimer(AweryJsRuntime, int)}
+	 */
+	public int postDelayed(@Nullable AweryJsRuntime runtime, @NonNull Runnable runnable, long delayMs) {
+		return postDelayed(runtime, runnable, delayMs, null);
+	}
+
+	/**
+	 * @param onDropped Will be ran on the loop thread if the timer was cancelled or the loop did quit before it has fired.
+	 *                  Use it to release resources which were held for the timer.
+	 * @return An id which can be used to cancel the timer by {@link #cancelTimer(AweryJsRuntime, int)}
+	 */
+	public int postDelayed(
+			@Nullable AweryJsRuntime runtime,
+			@NonNull Runnable runnable,
+			long delayMs,
+			@Nullable Runnable onDropped
+	) {
+		lock.lock();
+
+		try {
+			var id = ++lastTimerId;
+			var runAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs));
+			var task = new Task(id, runtime, runnable, onDropped, runAt, sequence++);
+
+			timers.add(task);
+			timersById.put(id, task);
+
+			// The loop may sleep until a later timer, so let it recalculate the deadline.
+			hasWork.signal();
+			return id;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Ids are shared by all runtimes of the loop, so the timer is being cancelled only if it was posted by the same runtime.
+	 */
+	public boolean cancelTimer(@Nullable AweryJsRuntime runtime, int id) {
+		Task task;
+		lock.lock();
+
+		try {
+			task = timersById.get(id);
+			if(task == null || task.runtime != runtime) return false;
+
+			timersById.remove(id);
+			if(!timers.remove(task)) return false;
+		} finally {
+			lock.unlock();
+		}
+
+		if(task.onDropped != null) {
+			if(isLoopThread()) {
+				task.onDropped.run();
+			} else {
+				post(runtime, task.onDropped);
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Stops the loop after the current task will finish. Pending tasks are being dropped.
+	 */
+	public void quit() {
+		lock.lock();
+
+		try {
+			isQuit = true;
+			tasks.clear();
+
+			// Will be released by the loop thread before it'll stop.
+			droppedTimers.addAll(timers);
+			timers.clear();
+			timersById.clear();
+			hasWork.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void run() throws InterruptedException {
+		while(true) {
+			var task = take();
+
+			if(task == null) {
+				releaseDroppedTimers();
+				return;
+			}
+
+			var startedAt = System.nanoTime();
+			AweryJsRuntime.setCurrent(task.runtime);
+
+			try {
+				task.runnable.run();
+			} catch(RuntimeException e) {
+				Log.e(TAG, "Task has thrown an exception!", e);
+			}
+
+			// Resolved promises are only scheduling their callbacks, so we do run them now.
+			if(task.runtime != null && !task.runtime.isClosed()) try {
+				task.runtime.getV8Runtime().await();
+			} catch(JavetException e) {
+				Log.e(TAG, "Failed to run microtasks!", e);
+			}
+
+			AweryJsRuntime.setCurrent(null);
+
+			var finishedAt = System.nanoTime();
+			record(totalQueueNanos, maxQueueNanos, startedAt - task.runAt);
+			record(totalRunNanos, maxRunNanos, finishedAt - startedAt);
+			executedTasks.incrementAndGet();
+		}
+	}
+
+	private void releaseDroppedTimers() {
+		List<Task> dropped;
+		lock.lock();
+
+		try {
+			dropped = new ArrayList<>(droppedTimers);
+			droppedTimers.clear();
+		} finally {
+			lock.unlock();
+		}
+
+		for(var task : dropped) {
+			if(task.onDropped == null) continue;
+
+			try {
+				task.onDropped.run();
+			} catch(RuntimeException e) {
+				Log.e(TAG, "Failed to release a dropped timer!", e);
+			}
+		}
+	}
+
+	private Task take() throws InterruptedException {
+		lock.lock();
+
+		try {
+			while(!isQuit) {
+				var timer = timers.peek();
+				var now = System.nanoTime();
+
+				if(timer != null && timer.runAt - now <= 0) {
+					timers.poll();
+					timersById.remove(timer.id);
+					return timer;
+				}
+
+				var task = tasks.poll();
+
+				if(task != null) {
+					return task;
+				}
+
+				if(timer == null) {
+					hasWork.await();
+				} else {
+					hasWork.awaitNanos(timer.runAt - now);
+				}
+			}
+
+			return null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static void record(@NonNull AtomicLong total, @NonNull AtomicLong max, long nanos) {
+		total.addAndGet(nanos);
+
+		long current;
+		while((current = max.get()) < nanos && !max.compareAndSet(current, nanos));
+	}
+
+	void attachRuntime() {
+		runtimesCount.incrementAndGet();
+	}
+
+	void detachRuntime() {
+		runtimesCount.decrementAndGet();
+	}
+
+	/**
+	 * @return Count of runtimes which are living on this loop.
+	 */
+	public int getRuntimesCount() {
+		return runtimesCount.get();
+	}
+
+	/**
+	 * @return Count of tasks which are ready to be ran, excluding timers.
+	 */
+	public int getQueueDepth() {
+		lock.lock();
+
+		try {
+			return tasks.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getPendingTimers() {
+		lock.lock();
+
+		try {
+			return timers.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getExecutedTasks() {
+		return executedTasks.get();
+	}
+
+	/**
+	 * @return Average time between the moment a task became ready and it's start.
+	 */
+	public long getAverageQueueLatency(@NonNull TimeUnit unit) {
+		var count = executedTasks.get();
+		return count == 0 ? 0 : unit.convert(totalQueueNanos.get() / count, TimeUnit.NANOSECONDS);
+	}
+
+	public long getMaxQueueLatency(@NonNull TimeUnit unit) {
+		return unit.convert(maxQueueNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return Average execution time of a task, including microtasks which it has scheduled.
+	 */
+	public long getAverageTaskTime(@NonNull TimeUnit unit) {
+		var count = executedTasks.get();
+		return count == 0 ? 0 : unit.convert(totalRunNanos.get() / count, TimeUnit.NANOSECONDS);
+	}
+
+	public long getMaxTaskTime(@NonNull TimeUnit unit) {
+		return unit.convert(maxRunNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	@NonNull
+	@Override
+	public String toString() {
+		return thread.getName() + "{runtimes=" + getRuntimesCount()
+				+ ", queue=" + getQueueDepth()
+				+ ", timers=" + getPendingTimers()
+				+ ", executed=" + getExecutedTasks()
+				+ ", avgLatencyUs=" + getAverageQueueLatency(TimeUnit.MICROSECONDS)
+				+ ", maxLatencyUs=" + getMaxQueueLatency(TimeUnit.MICROSECONDS)
+				+ ", avgTaskUs=" + getAverageTaskTime(TimeUnit.MICROSECONDS)
+				+ ", maxTaskUs=" + getMaxTaskTime(TimeUnit.MICROSECONDS) + "}";
+	}
+
+	private static class Task implements Comparable<Task> {
+		private final AweryJsRuntime runtime;
+		private final Runnable runnable, onDropped;
+		private final long runAt, sequence;
+		private final int id;
+
+		public Task(int id, AweryJsRuntime runtime, Runnable runnable, Runnable onDropped, long runAt, long sequence) {
+			this.id = id;
+			this.runtime = runtime;
+			this.runnable = runnable;
+			this.onDropped = onDropped;
+			this.runAt = runAt;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(@NonNull Task other) {
+			// nanoTime may overflow, so compare the difference.
+			var result = Long.compare(runAt - other.runAt, 0);
+			return result != 0 ? result : Long.compare(sequence, other.sequence);
+		}
+	}
+}
@@ -1,11 +1,47 @@
 package com.mrboomdev.awery.extensions.support.aweryjs;
 
+import android.util.Log;
+
 import com.caoccao.javet.annotations.V8Function;
+import com.caoccao.javet.exceptions.JavetException;
 import com.caoccao.javet.values.V8Value;
+import com.caoccao.javet.values.reference.V8ValueFunction;
 import com.mrboomdev.awery.BuildConfig;
 import com.mrboomdev.awery.app.App;
 
 public class AweryJsGlobalBridge {
+	private static final String TAG = "AweryJsGlobalBridge";
+	private final AweryJsRuntime runtime;
+
+	public AweryJsGlobalBridge(AweryJsRuntime runtime) {
+		this.runtime = runtime;
+	}
+
+	@V8Function
+	public int setTimeout(V8ValueFunction callback, long delay) throws JavetException {
+		// Arguments are being closed after the call, so we need our own reference.
+		var function = callback.toClone();
+
+		return runtime.postDelayed(() -> {
+			try(function) {
+				function.callVoid(null);
+			} catch(JavetException e) {
+				Log.e(TAG, "Timer callback has failed!", e);
+			}
+		}, delay, () -> {
+			// The timer won't fire, so nobody else will close it.
+			try {
+				function.close();
+			} catch(JavetException e) {
+				Log.e(TAG, "Failed to release the timer callback!", e);
+			}
+		});
+	}
+
+	@V8Function
+	public void clearTimeout(int id) {
+		runtime.cancelTimer(id);
+	}
 
 	@V8Function
 	public void toast(V8Value text, int duration) {
@@ -1,14 +1,9 @@
 package com.mrboomdev.awery.extensions.support.aweryjs;
 
-import static com.mrboomdev.awery.app.App.toast;
 import static com.mrboomdev.awery.app.Lifecycle.getAnyContext;
 import static com.mrboomdev.awery.app.data.settings.NicePreferences.getPrefs;
-import static com.mrboomdev.awery.util.NiceUtils.EMPTY_OBJECT;
-import static com.mrboomdev.awery.util.NiceUtils.asRuntimeException;
 import static com.mrboomdev.awery.util.NiceUtils.returnWith;
-import static com.mrboomdev.awery.util.async.AsyncUtils.await;
-import static com.mrboomdev.awery.util.async.AsyncUtils.controllableEmptyFuture;
-import static com.mrboomdev.awery.util.async.AsyncUtils.controllableFuture;
+import static com.mrboomdev.awery.util.NiceUtils.stream;
 import static com.mrboomdev.awery.util.async.AsyncUtils.thread;
 import static com.mrboomdev.awery.util.io.FileUtil.listFileNames;
 import static java.util.Objects.requireNonNull;
@@ -18,55 +13,49 @@ import android.net.Uri;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
-import com.caoccao.javet.exceptions.JavetError;
 import com.caoccao.javet.exceptions.JavetException;
-import com.caoccao.javet.interop.V8Host;
-import com.caoccao.javet.interop.V8Runtime;
-import com.caoccao.javet.interop.converters.JavetProxyConverter;
 import com.mrboomdev.awery.R;
 import com.mrboomdev.awery.app.Lifecycle;
 import com.mrboomdev.awery.app.CrashHandler;
 import com.mrboomdev.awery.extensions.__Extension;
-import com.mrboomdev.awery.extensions.ExtensionConstants;
+import com.mrboomdev.awery.extensions.ExtensionsFactory;
 import com.mrboomdev.awery.extensions.ExtensionsManager;
+import com.mrboomdev.awery.generated.AwerySettings;
 import com.mrboomdev.awery.sdk.util.UniqueIdGenerator;
-import com.mrboomdev.awery.util.Lazy;
 import com.mrboomdev.awery.ext.data.Progress;
 import com.mrboomdev.awery.util.async.AsyncFuture;
+import com.mrboomdev.awery.util.async.AsyncLane;
 import com.mrboomdev.awery.util.async.AsyncUtils;
 import com.mrboomdev.awery.util.async.EmptyFuture;
 import com.mrboomdev.awery.util.exceptions.ExtensionNotInstalledException;
-import com.mrboomdev.awery.util.exceptions.JsException;
 import com.mrboomdev.awery.util.io.FileUtil;
 
 import org.jetbrains.annotations.Contract;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AweryJsManager extends ExtensionsManager {
 	public static final String MANAGER_ID = "AWERY_JS";
 	private static final String TAG = "AweryJsManager";
 
-	private static final String BRIDGE_KEY = "__AWERY_BINDING__";
-	private static final String CONSTANTS_KEY = "__AWERY_CONSTANTS__";
-	private static final String GLOBALS_KEY = "__AWERY_GLOBALS__";
-
-	private final List<Runnable> queue = Collections.synchronizedList(new ArrayList<>());
+	private final Map<String, __Extension> extensions = new ConcurrentHashMap<>();
+	private final Map<String, AweryJsRuntime> runtimes = new ConcurrentHashMap<>();
 	private final UniqueIdGenerator idGenerator = new UniqueIdGenerator();
-	private final Map<String, __Extension> extensions = new HashMap<>();
-	private Thread jsThread;
+	private static final String CODE_CACHE_DIRECTORY = ".cache";
+	private static final String PRELUDE_NAME = "aweryjs_ext_startup.js";
+	private List<AweryJsEventLoop> loops;
+	private AweryJsCodeCache codeCache;
 	private Progress progress;
 
 	/**
@@ -74,171 +63,120 @@ public class AweryJsManager extends ExtensionsManager {
 	 */
 	public static final String INJECTED_CODE = returnWith(() -> {
 		try {
-			return FileUtil.readAssets("aweryjs_ext_startup.js");
+			return FileUtil.readAssets(PRELUDE_NAME);
 		} catch(IOException e) {
 			throw new IllegalStateException(e);
 		}
 	});
 
+	private void handleError(Throwable t) {
+		CrashHandler.showErrorDialog(new CrashHandler.CrashReport.Builder()
+				.setPrefix(R.string.please_report_bug_app)
+				.setTitle("AweryJS Engine Has Crashed!")
+				.setThrowable(t)
+				.setDismissCallback(Lifecycle::restartApp)
+				.build());
+	}
+
 	/**
-	 * Please, don't access this variable before ever accessing the {@link #jsRuntime},
-	 * or else it'll throw an {@link JavetException}
+	 * @return How many threads will run extensions. Each extension is always being ran by the same thread,
+	 * so that independent extensions can work at the same time.
 	 */
-	private final Lazy.Hard<AweryJsConsole, JavetException> globalConsole
-			= Lazy.createHardNever(() -> new JavetException(JavetError.LibraryNotLoaded));
-
-	public final Lazy.Hard<V8Runtime, JavetException> jsRuntime = Lazy.createHard(() -> {
-		var theRuntime = new AtomicReference<>(EMPTY_OBJECT);
+	public static int getThreadsCount() {
+		var value = AwerySettings.AWERYJS_THREADS.getValue(0);
 
-		jsThread = new Thread(() -> {
-			try {
-				var runtime = V8Host.getV8Instance().createV8Runtime();
-				runtime.setGCScheduled(true);
-				runtime.allowEval(false);
+		if(value == null || value <= 0) {
+			return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+		}
 
-				/*runtime.getNodeModule(NodeModuleModule.class)
-					.setRequireRootDirectory(getRootDir());*/
+		return value;
+	}
 
-				var converter = new JavetProxyConverter();
-				runtime.setConverter(converter);
+	@NonNull
+	public synchronized List<AweryJsEventLoop> getLoops() {
+		if(loops == null) {
+			var count = getThreadsCount();
+			var list = new ArrayList<AweryJsEventLoop>(count);
 
-				var console = new AweryJsConsole();
-				globalConsole.set(console);
+			for(int i = 0; i < count; i++) {
+				list.add(new AweryJsEventLoop("AweryJsThread-" + (i + 1), (t, e) -> handleError(e)));
+			}
 
-				try(var jsConsole = runtime.createV8ValueObject()) {
-					jsConsole.bind(console);
-					runtime.getGlobalObject().set("console", jsConsole);
-				}
+			loops = Collections.unmodifiableList(list);
+		}
 
-				try(var jsConstants = runtime.createV8ValueObject()) {
-					jsConstants.bind(new ExtensionConstants());
-					runtime.getGlobalObject().set(CONSTANTS_KEY, jsConstants);
-				}
+		return loops;
+	}
 
-				try(var jsGlobalBridge = runtime.createV8ValueObject()) {
-					var globalBridge = new AweryJsGlobalBridge();
-					jsGlobalBridge.bind(globalBridge);
-					runtime.getGlobalObject().set(GLOBALS_KEY, jsGlobalBridge);
-				}
+	/**
+	 * @return The loop with the least count of runtimes.
+	 */
+	@NonNull
+	private AweryJsEventLoop pickLoop() {
+		AweryJsEventLoop result = null;
 
-				runtime.setPromiseRejectCallback((event, promise, value) -> {
-					toast("look at the logcat for some js shit", 1);
-
-					try {
-						Log.e(TAG, "Promise has been rejected!", new JsException(value));
-					} catch(JavetException e) {
-						Log.e(TAG, "Failed to process an V8Value!", e);
-					}
-				});
-
-				/*runtime.getExecutor("""
-						process.on("uncaughtException", (e, origin) => {
-							AweryGlobal.toast("look at the logcat for some js shit", 1);
-							console.error("An uncaughtException has been raised!", e);
-						});
-						""").execute().close();*/
-
-				theRuntime.set(runtime);
-
-				while(true) {
-					synchronized(queue) {
-						var iterator = queue.iterator();
-
-						while(iterator.hasNext()) {
-							iterator.next().run();
-							iterator.remove();
-						}
-					}
-				}
-			} catch(JavetException e) {
-				handleError(e);
+		for(var loop : getLoops()) {
+			if(result == null || loop.getRuntimesCount() < result.getRuntimesCount()) {
+				result = loop;
 			}
-		}, "AweryJsThread");
-
-		jsThread.setUncaughtExceptionHandler((t, e) -> handleError(e));
-		jsThread.start();
+		}
 
-		await(() -> theRuntime.get() != EMPTY_OBJECT);
-		return (V8Runtime) theRuntime.get();
-	});
+		return requireNonNull(result);
+	}
 
-	private void handleError(Throwable t) {
-		CrashHandler.showErrorDialog(new CrashHandler.CrashReport.Builder()
-				.setPrefix(R.string.please_report_bug_app)
-				.setTitle("AweryJS Engine Has Crashed!")
-				.setThrowable(t)
-				.setDismissCallback(Lifecycle::restartApp)
-				.build());
+	@Nullable
+	public AweryJsRuntime getRuntime(String extensionId) {
+		return runtimes.get(extensionId);
 	}
 
-	public EmptyFuture runOnJsThread(AsyncUtils.ThreadEmptyRunnable runnable) {
-		try {
-			// Check if the runtime was initialized because else our messages would never by ran.
-			jsRuntime.get();
-		} catch(JavetException e) {
-			return AsyncUtils.emptyFutureFailNow(asRuntimeException(e));
+	public void lowMemoryNotification() {
+		for(var runtime : runtimes.values()) {
+			runtime.lowMemoryNotification();
 		}
+	}
 
-		if(Thread.currentThread() == jsThread) {
-			try {
-				runnable.run();
-				return AsyncUtils.futureNow();
-			} catch(Throwable e) {
-				return AsyncUtils.emptyFutureFailNow(e);
-			}
+	@NonNull
+	private synchronized AweryJsCodeCache getCodeCache() {
+		if(codeCache == null) {
+			codeCache = new AweryJsCodeCache(new File(getRootDir(), CODE_CACHE_DIRECTORY));
 		}
 
-		return controllableEmptyFuture(future -> queue.add(() -> {
-			try {
-				runnable.run();
-				future.complete();
-			} catch(Throwable e) {
-				future.fail(e);
-			}
-		}), false);
+		return codeCache;
 	}
 
-	public <T> AsyncFuture<T> runOnJsThread(AsyncUtils.ThreadRunnable<T> runnable) {
-		if(Thread.currentThread() == jsThread) {
-			try {
-				return AsyncUtils.futureNow(runnable.run());
-			} catch(Throwable e) {
-				return AsyncUtils.futureFailNow(e);
-			}
-		}
+	/**
+	 * Runs the code in a new runtime. If it fails, then the runtime is being closed.
+	 * @param resourceName Name of the script which will be shown in stack traces
+	 */
+	@NonNull
+	@SuppressWarnings("InstantiationOfUtiltyClass")
+	private __Extension createExtension(String code, String resourceName) throws Throwable {
+		var runtime = AweryJsRuntime.create(pickLoop()).await();
 
-		return controllableFuture(future -> queue.add(() -> {
-			try {
-				future.complete(runnable.run());
-			} catch(Throwable e) {
-				future.fail(e);
-			}
-		}), false);
+		try {
+			return runtime.runOnJsThread(() -> createExtension(runtime, code, resourceName)).await();
+		} catch(Throwable t) {
+			runtime.close();
+			throw t;
+		}
 	}
 
 	@NonNull
-	@SuppressWarnings("InstantiationOfUtiltyClass")
-	private __Extension createExtension(String code) throws JavetException, ExtensionNotInstalledException {
-		code = INJECTED_CODE + code;
-
-		var bridge = new AweryJsBridge(this);
-		var console = new AweryJsConsole(bridge);
-
-		try(var bridgeJs = jsRuntime.get().createV8ValueObject();
-			var consoleJs = jsRuntime.get().createV8ValueObject()
-		) {
-			bridgeJs.bind(bridge);
-			jsRuntime.get().getGlobalObject().set(BRIDGE_KEY, bridgeJs);
-
-			consoleJs.bind(console);
-			jsRuntime.get().getGlobalObject().set("console", consoleJs);
-
-			var fun = jsRuntime.get().getExecutor(code).compileV8ValueFunction();
-			fun.call(null);
-		} finally {
-			// We do this to ensure that bad extensions can't access other's data.
-			jsRuntime.get().getGlobalObject().delete(BRIDGE_KEY);
-			jsRuntime.get().getGlobalObject().set("console", globalConsole.get());
+	private __Extension createExtension(
+			@NonNull AweryJsRuntime runtime,
+			String code,
+			String resourceName
+	) throws JavetException, ExtensionNotInstalledException {
+		var bridge = new AweryJsBridge(this, runtime);
+		runtime.setBridge(bridge);
+
+		// The prelude is a separate script, so that it's bytecode is shared by all extensions.
+		try(var prelude = getCodeCache().compileScript(runtime.getV8Runtime(), INJECTED_CODE, PRELUDE_NAME)) {
+			prelude.executeVoid();
+		}
+
+		try(var fun = getCodeCache().compileFunction(runtime.getV8Runtime(), code, resourceName)) {
+			fun.callVoid(null);
 		}
 
 		// Receive manifest data
@@ -263,17 +201,20 @@ public class AweryJsManager extends ExtensionsManager {
 			ext.addProvider(provider);
 		}
 
+		var old = runtimes.put(id, runtime);
+		if(old != null && old != runtime) old.close();
+
 		return ext;
 	}
 
 	@Override
 	public AsyncFuture<__Extension> loadExtension(Context context, String id) {
 		return thread(() -> {
-			try(var is = new FileInputStream(new File(getAnyContext().getFilesDir(), getId() + "/" + id))) {
-				var ext = createExtension(FileUtil.readStream(is));
+			try {
+				var ext = createExtension(FileUtil.readFile(new File(getRootDir(), id)), id);
 				extensions.put(id, ext);
 				return ext;
-			} catch(IOException | JavetException e) {
+			} catch(IOException | JavetException | ExtensionNotInstalledException e) {
 				var extension = new __Extension(this, id, e);
 
 				extensions.put(id, extension);
@@ -289,7 +230,7 @@ public class AweryJsManager extends ExtensionsManager {
 		return thread(() -> {
 			try(var is = context.getContentResolver().openInputStream(uri)) {
 				var read = FileUtil.readStream(is);
-				var extension = createExtension(read);
+				var extension = createExtension(read, requireNonNull(uri.getLastPathSegment()));
 
 				var file = new File(getAnyContext().getFilesDir(), getId() + "/" + extension.getId());
 				FileUtil.createFile(file);
@@ -330,6 +271,10 @@ public class AweryJsManager extends ExtensionsManager {
 
 		extension.clearProviders();
 		extension.setError(__Extension.DISABLED_ERROR);
+
+		var runtime = runtimes.remove(id);
+		if(runtime != null) runtime.close();
+
 		return AsyncUtils.futureNow();
 	}
 
@@ -339,19 +284,30 @@ public class AweryJsManager extends ExtensionsManager {
 		return new File(getAnyContext().getFilesDir(), getId());
 	}
 
+	/**
+	 * @return Names of all installed scripts. Hidden files, like the code cache, aren't included.
+	 */
+	@NonNull
+	private List<String> listExtensionFiles() {
+		return stream(listFileNames(getRootDir()))
+				.filter(name -> !name.startsWith("."))
+				.toList();
+	}
+
 	@Override
 	public EmptyFuture loadAllExtensions(Context context) {
-		var files = listFileNames(getRootDir());
-		getProgress().setMax(files.length);
+		var files = listExtensionFiles();
+		getProgress().setMax(files.size());
 		getProgress().setProgress(0);
 
-		return runOnJsThread(() -> {
-			for(var name : files) {
+		// Every extension has it's own runtime, so they can be loaded at the same time.
+		return thread(AsyncLane.EXTENSION, () -> {
+			ExtensionsFactory.loadConcurrently(files, name -> {
 				var isEnabledKey = "ext_" + getId() + "_" + name + "_enabled";
 
 				if(!getPrefs().getBoolean(isEnabledKey, true)) {
 					extensions.put(name, new __Extension(this, name, __Extension.DISABLED_ERROR));
-					continue;
+					return;
 				}
 
 				try {
@@ -359,15 +315,17 @@ public class AweryJsManager extends ExtensionsManager {
 				} catch(ExtensionNotInstalledException e) {
 					Log.e(TAG, "Failed to load an extension!", e);
 				}
-			}
+			});
+
+			// Drop bytecode of removed and updated scripts.
+			getCodeCache().trim();
 		});
 	}
 
 	@Override
 	public Progress getProgress() {
 		if(progress == null) {
-			var rootDirectory = new File(getAnyContext().getFilesDir(), getId());
-			progress = new Progress(listFileNames(rootDirectory).length);
+			progress = new Progress(listExtensionFiles().size());
 		}
 
 		return progress;
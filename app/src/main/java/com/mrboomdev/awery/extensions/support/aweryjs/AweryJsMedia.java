@@ -0,0 +1,136 @@
+package com.mrboomdev.awery.extensions.support.aweryjs;
+
+import static com.mrboomdev.awery.util.NiceUtils.returnIfNotNull;
+import static com.mrboomdev.awery.util.NiceUtils.stream;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mrboomdev.awery.extensions.data.CatalogMedia;
+import com.mrboomdev.awery.extensions.data.CatalogTag;
+import com.mrboomdev.awery.util.Parser;
+import com.mrboomdev.awery.util.ParserAdapter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A media object in the same shape as extensions do return it.
+ * A whole page of results is being stringified by V8 at once and decoded here in one pass,
+ * so that we won't cross the JNI boundary for every single field.
+ */
+@SuppressWarnings("unused")
+public class AweryJsMedia {
+	private static final Parser.Adapter<List<AweryJsMedia>> LIST_ADAPTER = Parser.getAdapter(List.class, AweryJsMedia.class);
+	private static final Parser.Adapter<Page> PAGE_ADAPTER = Parser.getAdapter(Page.class);
+
+	public String id, banner, url, country, description, ageRating, status, type;
+	public Integer duration, episodesCount, latestEpisode;
+	public Float averageScore;
+	public List<String> genres, titles;
+	public Map<String, String> ids;
+
+	/**
+	 * Each of these may be either a string or an object.
+	 */
+	public Object extra, startDate, poster;
+
+	/**
+	 * Each item may be either a name of the tag or an object.
+	 */
+	public List<Object> tags;
+
+	public static class Page {
+		public List<AweryJsMedia> items;
+		public boolean hasNextPage;
+	}
+
+	/**
+	 * @param json Either an array of media or an object containing "items" and "hasNextPage"
+	 */
+	@NonNull
+	public static Page parsePage(@NonNull String json) throws IOException {
+		if(json.trim().startsWith("[")) {
+			var page = new Page();
+			page.items = Parser.fromString(LIST_ADAPTER, json);
+			return page;
+		}
+
+		return Parser.fromString(PAGE_ADAPTER, json);
+	}
+
+	@NonNull
+	public CatalogMedia toCatalogMedia(String managerId, String extensionId, String providerId) {
+		var media = new CatalogMedia(managerId, extensionId, providerId, Objects.requireNonNull(id, "id"));
+
+		media.banner = banner;
+		media.url = url;
+		media.country = country;
+		media.description = description;
+		media.ageRating = ageRating;
+		media.extra = extra == null ? null : (extra instanceof String s ? s : Parser.toString(Object.class, extra));
+
+		media.duration = duration;
+		media.averageScore = averageScore;
+		media.episodesCount = episodesCount;
+		media.latestEpisode = latestEpisode;
+
+		media.releaseDate = returnIfNotNull(startDate, date -> (date instanceof Number releaseDateNumber)
+				? ParserAdapter.calendarFromNumber(releaseDateNumber)
+				: ParserAdapter.calendarFromString(date.toString()));
+
+		media.status = returnIfNotNull(status, CatalogMedia.MediaStatus::valueOf);
+		media.type = type == null ? CatalogMedia.MediaType.TV : CatalogMedia.MediaType.valueOf(type);
+
+		if(genres != null) {
+			media.genres = stream(genres).filter(Objects::nonNull).toList();
+		}
+
+		if(tags != null) {
+			media.tags = stream(tags).filter(Objects::nonNull).map(AweryJsMedia::toTag).toList();
+		}
+
+		if(poster instanceof Map<?, ?> map) {
+			media.poster = new CatalogMedia.ImageVersions();
+			media.poster.large = getString(map, "large");
+			media.poster.medium = getString(map, "medium");
+			media.poster.extraLarge = getString(map, "extraLarge");
+		} else if(poster != null) {
+			media.setPoster(poster.toString());
+		}
+
+		media.setTitles(titles != null
+				? stream(titles).filter(Objects::nonNull).toList()
+				: List.of(media.getId()));
+
+		if(ids != null) {
+			for(var entry : ids.entrySet()) {
+				media.setId(entry.getKey(), entry.getValue());
+			}
+		}
+
+		return media;
+	}
+
+	@NonNull
+	private static CatalogTag toTag(@NonNull Object tag) {
+		if(tag instanceof Map<?, ?> map) {
+			var result = new CatalogTag();
+			result.setName(getString(map, "name"));
+			result.setDescription(getString(map, "description"));
+			result.setIsAdult(Boolean.TRUE.equals(map.get("isAdult")));
+			result.setIsSpoiler(Boolean.TRUE.equals(map.get("isSpoiler")));
+			return result;
+		}
+
+		return new CatalogTag(tag.toString());
+	}
+
+	@Nullable
+	private static String getString(@NonNull Map<?, ?> map, String key) {
+		var value = map.get(key);
+		return value == null ? null : value.toString();
+	}
+}
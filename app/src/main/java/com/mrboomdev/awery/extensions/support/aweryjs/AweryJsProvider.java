@@ -1,11 +1,6 @@
 package com.mrboomdev.awery.extensions.support.aweryjs;
 
-import static com.mrboomdev.awery.util.NiceUtils.doIfNotNull;
-import static com.mrboomdev.awery.util.NiceUtils.iterable;
-import static com.mrboomdev.awery.util.NiceUtils.returnIfNotNull;
-import static com.mrboomdev.awery.util.NiceUtils.returnWith;
 import static com.mrboomdev.awery.util.NiceUtils.stream;
-import static java.util.Objects.requireNonNull;
 
 import androidx.annotation.NonNull;
 
@@ -25,8 +20,6 @@ import com.mrboomdev.awery.extensions.ExtensionsManager;
 import com.mrboomdev.awery.extensions.data.CatalogFeed;
 import com.mrboomdev.awery.extensions.data.CatalogMedia;
 import com.mrboomdev.awery.extensions.data.CatalogSearchResults;
-import com.mrboomdev.awery.extensions.data.CatalogTag;
-import com.mrboomdev.awery.util.ParserAdapter;
 import com.mrboomdev.awery.util.async.AsyncFuture;
 import com.mrboomdev.awery.util.async.AsyncUtils;
 import com.mrboomdev.awery.util.exceptions.JsException;
@@ -36,6 +29,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import java9.util.stream.Collectors;
@@ -45,10 +39,12 @@ public class AweryJsProvider extends __ExtensionProvider {
 	private static final String TAG = "AweryJsProvider";
 	private final Map<String, V8Value> remembered = new HashMap<>();
 	private final AweryJsManager manager;
+	private final AweryJsRuntime runtime;
 	private final V8ValueObject impl;
 
-	public AweryJsProvider(AweryJsManager manager, V8ValueObject impl) {
+	public AweryJsProvider(AweryJsManager manager, AweryJsRuntime runtime, V8ValueObject impl) {
 		this.manager = manager;
+		this.runtime = runtime;
 		this.impl = impl;
 	}
 
@@ -131,101 +127,18 @@ public class AweryJsProvider extends __ExtensionProvider {
 				throw new ZeroResultsException("Zero results", R.string.no_media_found);
 			}
 
-			var items = AweryJsConverter.toJavaList(object instanceof V8ValueArray array ? array : object.get("items"));
+			// The whole page is being transferred as a single string,
+			// instead of calling into V8 for every field of every item.
+			var page = AweryJsMedia.parsePage(object.toJsonString());
 
-			if(items.isEmpty()) {
+			if(page.items == null || page.items.isEmpty()) {
 				throw new ZeroResultsException("Zero results", R.string.no_media_found);
 			}
 
-			return CatalogSearchResults.of(stream(items)
-					.filter(AweryJsProvider::nonNull)
-					.map(item -> {
-						if(!(item instanceof V8ValueObject objItem)) {
-							throw new IllegalArgumentException("Array item must be an Object!");
-						}
-
-						try {
-							var id = requireNonNull(objItem.getString("id"));
-							var media = new CatalogMedia(manager.getId(), extension.getId(), getId(), id);
-
-							media.banner = objItem.getString("banner");
-							media.url = objItem.getString("url");
-							media.country = objItem.getString("country");
-							media.description = objItem.getString("description");
-							media.ageRating = objItem.getString("ageRating");
-							media.extra = returnIfNotNull(objItem.getString("extra"), Object::toString);
-
-							media.duration = objItem.getInteger("duration");
-							media.averageScore = objItem.getFloat("averageScore");
-							media.episodesCount = objItem.getInteger("episodesCount");
-							media.latestEpisode = objItem.getInteger("latestEpisode");
-
-							media.releaseDate = returnIfNotNull(objItem.get("startDate"),
-									date -> (date instanceof Number releaseDateNumber)
-											? ParserAdapter.calendarFromNumber(releaseDateNumber)
-											: ParserAdapter.calendarFromString(date.toString()));
-
-							media.status = returnIfNotNull(objItem.getString("status"), CatalogMedia.MediaStatus::valueOf);
-
-							if(objItem.get("genres") instanceof V8ValueArray genres) {
-								media.genres = stream(genres)
-										.filter(AweryJsProvider::nonNull)
-										.map(Object::toString)
-										.toList();
-							}
-
-							if(objItem.get("tags") instanceof V8ValueArray tags) {
-								media.tags = stream(tags)
-										.filter(o -> o != null && !o.isNullOrUndefined())
-										.map(tag -> {
-											if(tag instanceof V8ValueObject map) try {
-												var result = new CatalogTag();
-												result.setName(map.getString("name"));
-												result.setDescription(map.getString("description"));
-												result.setIsAdult(Boolean.TRUE.equals(map.getBoolean("isAdult")));
-												result.setIsSpoiler(Boolean.TRUE.equals(map.getBoolean("isSpoiler")));
-												return result;
-											} catch(JavetException ignored) {}
-
-											return new CatalogTag(tag.toString());
-										})
-										.toList();
-							}
-
-							doIfNotNull(objItem.get("poster"), poster -> {
-								if(poster instanceof V8ValueObject o) try {
-									media.poster = new CatalogMedia.ImageVersions();
-									media.poster.large = o.getString("large");
-									media.poster.medium = o.getString("medium");
-									media.poster.extraLarge = o.getString("extraLarge");
-								} catch(JavetException ignored) {}
-
-								media.setPoster(poster.toString());
-							});
-
-							if(objItem.get("titles") instanceof V8ValueArray array) {
-								media.setTitles(stream(array)
-										.filter(AweryJsProvider::nonNull)
-										.map(Object::toString)
-										.toList());
-							} else {
-								media.setTitles(List.of(media.getId()));
-							}
-
-							media.type = returnWith(objItem.getString("type"), type ->
-									type == null ? CatalogMedia.MediaType.TV : CatalogMedia.MediaType.valueOf(type));
-
-							if(objItem.get("ids") instanceof V8ValueObject ids) {
-								for(var idEntry : iterable(stream(ids))) {
-									media.setId(idEntry.getKey().asString(), idEntry.getValue().asString());
-								}
-							}
-
-							return media;
-						} catch(JavetException e) {
-							throw new RuntimeException(e);
-						}
-					}).toList(), object != items ? object.getBoolean("hasNextPage") : false);
+			return CatalogSearchResults.of(stream(page.items)
+					.filter(Objects::nonNull)
+					.map(item -> item.toCatalogMedia(manager.getId(), extension.getId(), getId()))
+					.toList(), page.hasNextPage);
 		});
 	}
 
@@ -274,74 +187,77 @@ public class AweryJsProvider extends __ExtensionProvider {
 	}
 
 	/**
+	 * Calls the method on the thread of the extension's runtime.
 	 * @return Future of either the value either null. It cannot be undefined.
 	 */
 	@NonNull
 	private AsyncFuture<V8Value> call(String methodName, Object... arguments) {
-		try {
-			var it = impl.get(methodName);
+		return runtime.runOnJsThread(() -> invoke(methodName, arguments)).thenControllable((it, future) -> {
+			if(!(it instanceof V8ValuePromise promise)) {
+				future.complete(it);
+				return;
+			}
 
-			if(it instanceof V8ValueFunction fun) {
-				V8Value[] jsValues;
+			promise.register(new IV8ValuePromise.IListener() {
+				@Override
+				public void onFulfilled(V8Value v8Value) {
+					try {
+						future.complete(v8Value);
+					} catch(Throwable e) {
+						future.fail(e);
+					}
+				}
 
-				if(arguments instanceof V8Value[] v8Values) {
-					jsValues = v8Values;
-				} else {
-					jsValues = new V8Value[arguments.length];
+				@Override
+				public void onCatch(V8Value v8Value) {
+					try {
+						future.fail(new JsException(v8Value));
+					} catch(JavetException e) {
+						future.fail(e);
+					}
+				}
 
-					for(int i = 0; i < arguments.length; i++) {
-						V8Value obj;
+				@Override
+				public void onRejected(V8Value v8Value) {
+					onCatch(v8Value);
+				}
+			});
 
-						if(arguments[i] instanceof V8Value value) {
-							obj = value;
-						} else {
-							var o = manager.jsRuntime.get().createV8ValueObject();
-							o.bind(arguments[i]);
-							obj = o;
-						}
+			// The promise may be settled already, so let the loop run it's callbacks.
+			runtime.drainMicrotasks();
+		});
+	}
 
-						jsValues[i] = obj;
-					}
-				}
+	private V8Value invoke(String methodName, Object... arguments) throws JavetException {
+		var it = impl.get(methodName);
 
-				it = fun.call(null, jsValues);
-			}
+		if(it instanceof V8ValueFunction fun) {
+			V8Value[] jsValues;
 
-			if(it instanceof V8ValuePromise promise) {
-				return AsyncUtils.controllableFuture(future -> {
-					promise.register(new IV8ValuePromise.IListener() {
-						@Override
-						public void onFulfilled(V8Value v8Value) {
-							try {
-								future.complete(v8Value);
-							} catch(Throwable e) {
-								future.fail(e);
-							}
-						}
+			if(arguments instanceof V8Value[] v8Values) {
+				jsValues = v8Values;
+			} else {
+				jsValues = new V8Value[arguments.length];
 
-						@Override
-						public void onCatch(V8Value v8Value) {
-							try {
-								future.fail(new JsException(v8Value));
-							} catch(JavetException e) {
-								future.fail(e);
-							}
-						}
+				for(int i = 0; i < arguments.length; i++) {
+					V8Value obj;
 
-						@Override
-						public void onRejected(V8Value v8Value) {
-							onCatch(v8Value);
-						}
-					});
+					if(arguments[i] instanceof V8Value value) {
+						obj = value;
+					} else {
+						var o = runtime.getV8Runtime().createV8ValueObject();
+						o.bind(arguments[i]);
+						obj = o;
+					}
 
-					promise.getV8Runtime().await();
-				});
+					jsValues[i] = obj;
+				}
 			}
 
-			return AsyncUtils.futureNow(it);
-		} catch(JavetException e) {
-			return AsyncUtils.futureFailNow(e);
+			it = fun.call(null, jsValues);
 		}
+
+		return it;
 	}
 
 	private AsyncFuture<V8Value> rememberOrGet(String key) {
@@ -354,7 +270,7 @@ public class AweryJsProvider extends __ExtensionProvider {
 		return call(key).then(result -> {
 			remembered.put(key,result.toClone());
 			return result;
-		}, false);
+		});
 	}
 
 	private static boolean nonNull(@NonNull V8Value v8Value) {
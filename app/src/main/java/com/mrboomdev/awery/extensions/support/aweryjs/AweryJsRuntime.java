@@ -0,0 +1,237 @@
+package com.mrboomdev.awery.extensions.support.aweryjs;
+
+import static com.mrboomdev.awery.app.App.toast;
+import static com.mrboomdev.awery.util.async.AsyncUtils.controllableEmptyFuture;
+import static com.mrboomdev.awery.util.async.AsyncUtils.controllableFuture;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interop.V8Host;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.interop.converters.JavetProxyConverter;
+import com.mrboomdev.awery.extensions.ExtensionConstants;
+import com.mrboomdev.awery.util.async.AsyncFuture;
+import com.mrboomdev.awery.util.async.AsyncUtils;
+import com.mrboomdev.awery.util.async.EmptyFuture;
+import com.mrboomdev.awery.util.exceptions.JsException;
+
+/**
+ * An isolated V8 runtime of a single extension, so that extensions can't see each other's globals.
+ * All of it's work is being done on the {@link AweryJsEventLoop} to which it was attached.
+ */
+public class AweryJsRuntime {
+	private static final String TAG = "AweryJsRuntime";
+	private static final ThreadLocal<AweryJsRuntime> current = new ThreadLocal<>();
+
+	private static final String BRIDGE_KEY = "__AWERY_BINDING__";
+	private static final String CONSTANTS_KEY = "__AWERY_CONSTANTS__";
+	private static final String GLOBALS_KEY = "__AWERY_GLOBALS__";
+
+	/**
+	 * Timers are being ran by the {@link AweryJsEventLoop}, because there is no such thing in the pure V8.
+	 */
+	private static final String TIMERS_CODE = """
+			globalThis.setTimeout = (callback, delay, ...args) =>
+				__AWERY_GLOBALS__.setTimeout(() => callback(...args), delay ?? 0);
+
+			globalThis.clearTimeout = id => __AWERY_GLOBALS__.clearTimeout(id ?? 0);
+			""";
+
+	private final AweryJsEventLoop loop;
+	private V8Runtime runtime;
+	private volatile boolean isClosed;
+
+	private AweryJsRuntime(@NonNull AweryJsEventLoop loop) {
+		this.loop = loop;
+	}
+
+	/**
+	 * Creates a new runtime on the loop's thread.
+	 */
+	@NonNull
+	public static AsyncFuture<AweryJsRuntime> create(@NonNull AweryJsEventLoop loop) {
+		var runtime = new AweryJsRuntime(loop);
+		loop.attachRuntime();
+
+		return runtime.runOnJsThread(() -> {
+			try {
+				runtime.init();
+			} catch(Throwable t) {
+				runtime.close();
+				throw t;
+			}
+
+			return runtime;
+		});
+	}
+
+	private void init() throws JavetException {
+		runtime = V8Host.getV8Instance().createV8Runtime();
+		runtime.setGCScheduled(true);
+		runtime.allowEval(false);
+		runtime.setConverter(new JavetProxyConverter());
+
+		try(var jsConstants = runtime.createV8ValueObject()) {
+			jsConstants.bind(new ExtensionConstants());
+			runtime.getGlobalObject().set(CONSTANTS_KEY, jsConstants);
+		}
+
+		try(var jsGlobalBridge = runtime.createV8ValueObject()) {
+			jsGlobalBridge.bind(new AweryJsGlobalBridge(this));
+			runtime.getGlobalObject().set(GLOBALS_KEY, jsGlobalBridge);
+		}
+
+		runtime.getExecutor(TIMERS_CODE).executeVoid();
+
+		runtime.setPromiseRejectCallback((event, promise, value) -> {
+			toast("look at the logcat for some js shit", 1);
+
+			try {
+				Log.e(TAG, "Promise has been rejected!", new JsException(value));
+			} catch(JavetException e) {
+				Log.e(TAG, "Failed to process an V8Value!", e);
+			}
+		});
+	}
+
+	/**
+	 * Exposes the bridge and it's console to the extension.
+	 * There is only one extension per runtime, so they are never being removed.
+	 */
+	void setBridge(@NonNull AweryJsBridge bridge) throws JavetException {
+		try(var bridgeJs = runtime.createV8ValueObject();
+			var consoleJs = runtime.createV8ValueObject()
+		) {
+			bridgeJs.bind(bridge);
+			runtime.getGlobalObject().set(BRIDGE_KEY, bridgeJs);
+
+			consoleJs.bind(new AweryJsConsole(bridge));
+			runtime.getGlobalObject().set("console", consoleJs);
+		}
+	}
+
+	/**
+	 * @return Runtime which is being used by the current task or null, if we aren't inside of an {@link AweryJsEventLoop}.
+	 */
+	@Nullable
+	public static AweryJsRuntime current() {
+		return current.get();
+	}
+
+	static void setCurrent(@Nullable AweryJsRuntime runtime) {
+		current.set(runtime);
+	}
+
+	@NonNull
+	public V8Runtime getV8Runtime() {
+		if(runtime == null) {
+			throw new IllegalStateException("Runtime isn't initialized yet!");
+		}
+
+		return runtime;
+	}
+
+	@NonNull
+	public AweryJsEventLoop getLoop() {
+		return loop;
+	}
+
+	public boolean isClosed() {
+		return isClosed;
+	}
+
+	public EmptyFuture runOnJsThread(AsyncUtils.ThreadEmptyRunnable runnable) {
+		if(loop.isLoopThread()) {
+			try {
+				runnable.run();
+				return AsyncUtils.futureNow();
+			} catch(Throwable e) {
+				return AsyncUtils.emptyFutureFailNow(e);
+			}
+		}
+
+		return controllableEmptyFuture(future -> loop.post(this, () -> {
+			try {
+				runnable.run();
+				future.complete();
+			} catch(Throwable e) {
+				future.fail(e);
+			}
+		}), false);
+	}
+
+	public <T> AsyncFuture<T> runOnJsThread(AsyncUtils.ThreadRunnable<T> runnable) {
+		if(loop.isLoopThread()) {
+			try {
+				return AsyncUtils.futureNow(runnable.run());
+			} catch(Throwable e) {
+				return AsyncUtils.futureFailNow(e);
+			}
+		}
+
+		return controllableFuture(future -> loop.post(this, () -> {
+			try {
+				future.complete(runnable.run());
+			} catch(Throwable e) {
+				future.fail(e);
+			}
+		}), false);
+	}
+
+	/**
+	 * @return An id which can be used to cancel the timer by {@link #cancelTimer(int)}
+	 */
+	public int postDelayed(@NonNull Runnable runnable, long delayMs) {
+		return loop.postDelayed(this, runnable, delayMs);
+	}
+
+	/**
+	 * @param onDropped Will be ran on the js thread if the timer was cancelled before it has fired.
+	 * @return An id which can be used to cancel the timer by {@link #cancelTimer(int)}
+	 */
+	public int postDelayed(@NonNull Runnable runnable, long delayMs, @Nullable Runnable onDropped) {
+		return loop.postDelayed(this, runnable, delayMs, onDropped);
+	}
+
+	public boolean cancelTimer(int id) {
+		return loop.cancelTimer(this, id);
+	}
+
+	/**
+	 * Wakes the js thread up, so that promises which were settled outside of it will call their callbacks.
+	 */
+	public void drainMicrotasks() {
+		loop.post(this, () -> {});
+	}
+
+	public void lowMemoryNotification() {
+		loop.post(this, () -> {
+			if(runtime != null && !isClosed) {
+				runtime.lowMemoryNotification();
+			}
+		});
+	}
+
+	/**
+	 * Closes the runtime on it's thread. All values created by it will become unusable.
+	 */
+	public void close() {
+		if(isClosed) return;
+		isClosed = true;
+
+		loop.post(null, () -> {
+			loop.detachRuntime();
+			if(runtime == null) return;
+
+			try {
+				runtime.close();
+			} catch(JavetException e) {
+				Log.e(TAG, "Failed to close the runtime!", e);
+			}
+		});
+	}
+}
@@ -7,6 +7,7 @@ import static com.mrboomdev.awery.util.async.AsyncUtils.thread;
 import androidx.annotation.NonNull;
 
 import com.mrboomdev.awery.R;
+import com.mrboomdev.awery.app.data.db.item.DBMediaWithProgress;
 import com.mrboomdev.awery.app.data.settings.base.SettingsList;
 import com.mrboomdev.awery.extensions.__Extension;
 import com.mrboomdev.awery.extensions.ExtensionConstants;
@@ -15,8 +16,12 @@ import com.mrboomdev.awery.extensions.ExtensionsManager;
 import com.mrboomdev.awery.extensions.data.CatalogMedia;
 import com.mrboomdev.awery.extensions.data.CatalogSearchResults;
 import com.mrboomdev.awery.util.async.AsyncFuture;
+import com.mrboomdev.awery.util.async.AsyncLane;
 import com.mrboomdev.awery.util.exceptions.ZeroResultsException;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 public class InternalProviders {
@@ -42,25 +47,64 @@ public class InternalProviders {
 	}
 
 	public static class Lists extends InternalProvider {
+		private static final int PAGE_SIZE = 50;
+		private static final int MAX_CURSORS = 64;
 		private final Set<String> FEATURES = Set.of(
 				ExtensionConstants.FEATURE_MEDIA_SEARCH,
 				ExtensionConstants.FEATURE_FEEDS);
 
+		/**
+		 * Last item of each loaded page, so that the next page could be requested by a keyset.
+		 * Only the most recently used pages are being kept. If a cursor was dropped,
+		 * the page is being loaded by an offset instead.
+		 */
+		private final Map<String, DBMediaWithProgress> lastItems = new LinkedHashMap<>(16, .75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, DBMediaWithProgress> eldest) {
+				return size() > MAX_CURSORS;
+			}
+		};
+
 		@Override
 		public AsyncFuture<CatalogSearchResults<? extends CatalogMedia>> searchMedia(@NonNull SettingsList filters) {
-			return thread(() -> {
+			return thread(AsyncLane.DATABASE, () -> {
 				var feed = filters.require(ExtensionConstants.FILTER_FEED).getStringValue();
+				var pageFilter = filters.get(ExtensionConstants.FILTER_PAGE);
+				var page = (pageFilter != null && pageFilter.getIntegerValue() != null) ? pageFilter.getIntegerValue() : 0;
+
+				var dao = getDatabase().getMediaDao();
+				DBMediaWithProgress previous = null;
+
+				synchronized(lastItems) {
+					if(page == 0) {
+						// The list may have changed since it was browsed last time, so old cursors can't be trusted.
+						lastItems.keySet().removeIf(key -> key.startsWith(feed + "\n"));
+					} else {
+						previous = lastItems.get(feed + "\n" + (page - 1));
+					}
+				}
 
-				var progresses = getDatabase().getMediaProgressDao().getAllFromList(feed);
+				// One more item is being requested to know if there is a next page.
+				var items = new ArrayList<>(page == 0
+						? dao.getPageFromList(feed, Long.MAX_VALUE, "", PAGE_SIZE + 1)
+						: previous != null && previous.addedAt != null
+						? dao.getPageFromList(feed, previous.addedAt, previous.media.getGlobalId(), PAGE_SIZE + 1)
+						: dao.getPageFromListByOffset(feed, PAGE_SIZE + 1, page * PAGE_SIZE));
 
-				if(progresses.isEmpty()) {
+				if(items.isEmpty()) {
 					throw new ZeroResultsException("No bookmarks", R.string.no_media_found);
 				}
 
-				return CatalogSearchResults.of(stream(progresses)
-						.map(progress -> getDatabase().getMediaDao()
-								.get(progress.globalId).toCatalogMedia())
-						.toList(), false);
+				var hasNextPage = items.size() > PAGE_SIZE;
+				if(hasNextPage) items.remove(PAGE_SIZE);
+
+				synchronized(lastItems) {
+					lastItems.put(feed + "\n" + page, items.get(items.size() - 1));
+				}
+
+				return CatalogSearchResults.of(stream(items)
+						.map(item -> item.media.toCatalogMedia())
+						.toList(), hasNextPage);
 			});
 		}
 
@@ -3,6 +3,8 @@ package com.mrboomdev.awery.extensions.support.yomi;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 
+import android.util.Log;
+
 import androidx.annotation.NonNull;
 
 import com.mrboomdev.awery.app.data.AndroidImage;
@@ -15,21 +17,29 @@ import org.jetbrains.annotations.NotNull;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
 public class YomiExtension extends Extension {
+	private static final String TAG = "YomiExtension";
 	protected final List<YomiProvider> providers = new ArrayList<>();
 	protected AdultContentMode adultContent;
-	protected boolean isLoaded;
+	protected volatile boolean isLoaded;
+	protected YomiManifest.Entry manifestEntry;
+	private final YomiManager manager;
+	private final PackageManager pm;
 	private final String version, name, id;
 	private AndroidImage icon;
 	private Throwable throwable;
 
 	public YomiExtension(
+			YomiManager manager,
 			PackageManager pm,
 			@NotNull PackageInfo packageInfo,
 			String label
 	) {
+		this.manager = manager;
+		this.pm = pm;
 		this.id = packageInfo.packageName;
 		this.version = packageInfo.versionName;
 		this.name = label;
@@ -39,6 +49,65 @@ public class YomiExtension extends Extension {
 		}
 	}
 
+	/**
+	 * Creates an extension from the manifest without loading any of it's classes.
+	 * They will be loaded only after a provider will be requested.
+	 */
+	public YomiExtension(
+			YomiManager manager,
+			PackageManager pm,
+			@NotNull YomiManifest.Entry entry
+	) {
+		this.manager = manager;
+		this.pm = pm;
+		this.id = entry.packageName;
+		this.version = entry.versionName;
+		this.name = entry.label;
+		this.manifestEntry = entry;
+	}
+
+	/**
+	 * Loads classes of the extension if it was created from the manifest.
+	 * @throws com.mrboomdev.awery.util.exceptions.CancelledException If the extension is disabled
+	 */
+	public void ensureLoaded() {
+		if(isLoaded || throwable != null) {
+			return;
+		}
+
+		synchronized(this) {
+			if(isLoaded || throwable != null) {
+				return;
+			}
+
+			manager.loadExtension(id);
+		}
+	}
+
+	/**
+	 * Note that this method will load classes of the extension if they weren't loaded yet.
+	 * Use {@link #getCachedProviders()} if you only need to list providers.
+	 */
+	public List<YomiProvider> getProviders() {
+		ensureLoaded();
+		return Collections.unmodifiableList(providers);
+	}
+
+	/**
+	 * @return Providers which were found while the extension was loaded last time.
+	 * Empty if it was never loaded.
+	 */
+	@NonNull
+	public List<YomiManifest.ProviderEntry> getCachedProviders() {
+		var entry = manifestEntry;
+
+		if(entry == null || entry.providers == null) {
+			return Collections.emptyList();
+		}
+
+		return entry.providers;
+	}
+
 	public void setThrowable(Throwable t) {
 		this.throwable = t;
 	}
@@ -55,13 +124,21 @@ public class YomiExtension extends Extension {
 
 	@Override
 	public ExtensionProvider getProvider() {
+		ensureLoaded();
 		return providers.get(0);
 	}
 
 	@NonNull
 	@Override
 	public Collection<String> getFeatures() {
-		return Collections.emptyList();
+		var features = new HashSet<String>();
+
+		for(var provider : getCachedProviders()) {
+			if(provider.features == null) continue;
+			features.addAll(provider.features);
+		}
+
+		return features;
 	}
 
 	@Override
@@ -77,6 +154,14 @@ public class YomiExtension extends Extension {
 
 	@Override
 	public AndroidImage getIcon() {
+		if(icon == null) {
+			try {
+				icon = new AndroidImage(pm.getApplicationIcon(id));
+			} catch(PackageManager.NameNotFoundException e) {
+				Log.e(TAG, "Failed to load an icon!", e);
+			}
+		}
+
 		return icon;
 	}
 
@@ -31,26 +31,32 @@ import com.mrboomdev.awery.ext.source.Extension;
 import com.mrboomdev.awery.ext.source.ExtensionsManager;
 import com.mrboomdev.awery.ext.source.Repository;
 import com.mrboomdev.awery.extensions.ExtensionSettings;
+import com.mrboomdev.awery.extensions.ExtensionsFactory;
 import com.mrboomdev.awery.sdk.util.MimeTypes;
 import com.mrboomdev.awery.util.NiceUtils;
 import com.mrboomdev.awery.util.Parser;
+import com.mrboomdev.awery.util.async.AsyncLane;
+import com.mrboomdev.awery.util.async.AsyncPriority;
 import com.mrboomdev.awery.util.exceptions.CancelledException;
 import com.mrboomdev.awery.util.io.HttpClient;
 import com.mrboomdev.awery.util.io.HttpRequest;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -59,8 +65,10 @@ import java9.util.Objects;
 
 public abstract class YomiManager extends ExtensionsManager {
 	private static final int PM_FLAGS = PackageManager.GET_CONFIGURATIONS | PackageManager.GET_META_DATA;
-	private final Map<String, YomiExtension> extensions = new HashMap<>();
+	private final Map<String, YomiExtension> extensions = new ConcurrentHashMap<>();
+	private final Object lookupLock = new Object();
 	private static final String TAG = "YomiManager";
+	private YomiManifest manifest;
 	private Progress progress;
 
 	public YomiManager() {
@@ -83,8 +91,39 @@ public abstract class YomiManager extends ExtensionsManager {
 
 	public abstract List<? extends YomiProvider> createProviders(Extension extension, Object main);
 
+	/**
+	 * Extensions are being created from the manifest before all packages were checked,
+	 * so a package installed while we weren't running is being looked up right away.
+	 */
 	@Override
 	public Extension getExtension(String id) {
+		var extension = extensions.get(id);
+		if(extension != null || id == null) return extension;
+
+		var context = getAnyContext();
+		PackageInfo pkg;
+
+		try {
+			pkg = context.getPackageManager().getPackageInfo(id, PM_FLAGS);
+		} catch(PackageManager.NameNotFoundException e) {
+			return null;
+		}
+
+		if(!isExtension(pkg)) return null;
+
+		synchronized(lookupLock) {
+			extension = extensions.get(id);
+			if(extension != null) return extension;
+
+			try {
+				initExtension(pkg, context);
+			} catch(CancelledException e) {
+				Log.i(TAG, "Extension is disabled: " + pkg.packageName);
+			}
+
+			getManifest().write();
+		}
+
 		return extensions.get(id);
 	}
 
@@ -96,37 +135,168 @@ public abstract class YomiManager extends ExtensionsManager {
 	@Override
 	public Progress getProgress() {
 		if(progress == null) {
-			return progress = new Progress(getPackages(getAnyContext()).size());
+			var manifest = getManifest();
+
+			return progress = new Progress(manifest.read()
+					? manifest.getAll().size()
+					: getPackages(getAnyContext()).size());
 		}
 
 		return progress;
 	}
 
+	@NonNull
+	public synchronized YomiManifest getManifest() {
+		if(manifest == null) {
+			manifest = new YomiManifest(new File(getAppContext().getCacheDir(),
+					"extensions/" + getId() + "_manifest.json"));
+		}
+
+		return manifest;
+	}
+
 	private List<PackageInfo> getPackages(@NonNull Context context) {
 		return stream(context.getPackageManager().getInstalledPackages(PM_FLAGS))
-				.filter(p -> {
-					if(p.reqFeatures == null) return false;
+				.filter(this::isExtension).toList();
+	}
 
-					for(var feature : p.reqFeatures) {
-						if(feature.name == null) continue;
-						if(feature.name.equals(getRequiredFeature())) return true;
-					}
+	private boolean isExtension(@NonNull PackageInfo pkg) {
+		if(pkg.reqFeatures == null) return false;
 
-					return false;
-				}).toList();
+		for(var feature : pkg.reqFeatures) {
+			if(feature.name == null) continue;
+			if(feature.name.equals(getRequiredFeature())) return true;
+		}
+
+		return false;
 	}
 
 	@Override
 	public void loadAllExtensions() {
 		var context = getAnyContext();
+		var manifest = getManifest();
+
+		if(manifest.read()) {
+			if(progress == null) {
+				progress = new Progress(manifest.getAll().size());
+			}
+
+			loadFromManifest(context);
+			progress.setCompleted();
+
+			// Something may have been installed while we weren't running,
+			// but we don't want to delay the startup because of it.
+			thread(AsyncLane.EXTENSION, AsyncPriority.BACKGROUND, () -> {
+				syncExtensions(context, getPackages(context));
+			});
+
+			return;
+		}
 
-		for(var pkg : getPackages(context)) {
-			initExtension(pkg, context);
+		var packages = getPackages(context);
+
+		if(progress == null) {
+			progress = new Progress(packages.size());
 		}
 
+		syncExtensions(context, packages);
 		progress.setCompleted();
 	}
 
+	/**
+	 * Creates extensions from the manifest without scanning all packages and loading their classes.
+	 * Packages which were updated since the last launch are being loaded right away,
+	 * so that they'll be available as soon as the loading is done.
+	 */
+	private void loadFromManifest(@NonNull Context context) {
+		var pm = context.getPackageManager();
+		var changed = new ArrayList<PackageInfo>();
+
+		for(var entry : new ArrayList<>(manifest.getAll())) {
+			PackageInfo pkg;
+
+			try {
+				// No flags, so that this call will be cheap.
+				pkg = pm.getPackageInfo(entry.packageName, 0);
+			} catch(PackageManager.NameNotFoundException e) {
+				manifest.remove(entry.packageName);
+				continue;
+			}
+
+			if(!entry.matches(pkg)) {
+				try {
+					changed.add(pm.getPackageInfo(entry.packageName, PM_FLAGS));
+				} catch(PackageManager.NameNotFoundException e) {
+					// Was removed just now.
+					manifest.remove(entry.packageName);
+				}
+
+				continue;
+			}
+
+			var extension = new YomiExtension(this, pm, entry);
+
+			if(entry.isNsfw) {
+				extension.adultContent = AdultContentMode.ONLY;
+			}
+
+			if(entry.error != null) {
+				extension.setThrowable(new IllegalArgumentException(entry.error));
+			}
+
+			extensions.put(entry.packageName, extension);
+			progress.increment();
+			onExtensionLoaded(extension);
+		}
+
+		if(changed.isEmpty()) return;
+
+		ExtensionsFactory.loadConcurrently(changed, pkg -> {
+			try {
+				initExtension(pkg, context);
+			} catch(CancelledException e) {
+				Log.i(TAG, "Extension is disabled: " + pkg.packageName);
+			}
+		});
+
+		manifest.write();
+	}
+
+	/**
+	 * Loads all new and updated packages, drops removed ones and saves the manifest.
+	 */
+	private void syncExtensions(@NonNull Context context, @NonNull List<PackageInfo> packages) {
+		var installed = new HashSet<String>();
+		var changed = new ArrayList<PackageInfo>();
+
+		for(var pkg : packages) {
+			installed.add(pkg.packageName);
+
+			if(extensions.containsKey(pkg.packageName) && manifest.getFresh(pkg) != null) {
+				continue;
+			}
+
+			changed.add(pkg);
+		}
+
+		for(var entry : new ArrayList<>(manifest.getAll())) {
+			if(installed.contains(entry.packageName)) continue;
+
+			manifest.remove(entry.packageName);
+			extensions.remove(entry.packageName);
+		}
+
+		ExtensionsFactory.loadConcurrently(changed, pkg -> {
+			try {
+				initExtension(pkg, context);
+			} catch(CancelledException e) {
+				Log.i(TAG, "Extension is disabled: " + pkg.packageName);
+			}
+		});
+
+		manifest.write();
+	}
+
 	private void initExtension(@NonNull PackageInfo pkg, @NonNull Context context) {
 		var pm = context.getPackageManager();
 
@@ -140,25 +310,40 @@ public abstract class YomiManager extends ExtensionsManager {
 			label = label.substring(getPrefix().length()).trim();
 		}
 
+		var isNsfw = pkg.applicationInfo.metaData.getInt(getNsfwMeta(), 0) == 1;
+		var entry = YomiManifest.Entry.create(pkg, label, isNsfw);
+
 		if(pkg.versionName != null) {
 			try {
 				checkSupportedVersionBounds(pkg.versionName, getMinVersion(), getMaxVersion());
 			} catch(IllegalArgumentException e) {
-				var ext = new YomiExtension(pm, pkg, label);
+				var ext = new YomiExtension(this, pm, pkg, label);
 				ext.setThrowable(e);
+				ext.manifestEntry = entry;
+				entry.error = e.getMessage();
 				extensions.put(pkg.packageName, ext);
+				getManifest().put(entry);
+				onExtensionLoaded(ext);
 				return;
 			}
 		}
 
-		var extension = new YomiExtension(pm, pkg, label);
+		var extension = new YomiExtension(this, pm, pkg, label);
+		extension.manifestEntry = entry;
 
-		if(pkg.applicationInfo.metaData.getInt(getNsfwMeta(), 0) == 1) {
+		if(isNsfw) {
 			extension.adultContent = AdultContentMode.ONLY;
 		}
 
 		extensions.put(pkg.packageName, extension);
-		loadExtension(pkg.packageName);
+
+		try {
+			loadExtension(pkg.packageName);
+		} finally {
+			// Disabled extensions are being cached too, but without any providers.
+			getManifest().put(entry);
+			onExtensionLoaded(extension);
+		}
 	}
 
 	@Override
@@ -191,8 +376,17 @@ public abstract class YomiManager extends ExtensionsManager {
 				.flatMap(NiceUtils::stream)
 				.toList());
 
+		if(extension.manifestEntry != null) {
+			extension.manifestEntry.setProviders(extension.providers);
+		}
+
 		extension.isLoaded = true;
-		getProgress().increment();
+
+		// Lazily loaded extensions were already counted.
+		if(!getProgress().isCompleted()) {
+			getProgress().increment();
+		}
+
 		return extension;
 	}
 
@@ -206,6 +400,7 @@ public abstract class YomiManager extends ExtensionsManager {
 
 		if(extension.isLoaded) {
 			extension.isLoaded = false;
+			extension.providers.clear();
 			extension.setThrowable(null);
 		}
 	}
@@ -287,10 +482,10 @@ public abstract class YomiManager extends ExtensionsManager {
 	@Override
 	public Repository getRepository(String url) {
 		try {
-			var response = HttpClient.fetchSync(new HttpRequest(url));
+			var response = HttpClient.fetchSync(new HttpRequest(url).setStreaming(true));
 
-			var items = Parser.<List<Repository.Item>>fromString(Parser.getAdapter(
-					List.class, Repository.Item.class), response.getText());
+			var items = response.parseJson(Parser.<List<Repository.Item>>getAdapter(
+					List.class, Repository.Item.class));
 
 			return new Repository.Builder(this, url)
 					.setTitle(url)
@@ -377,6 +572,7 @@ public abstract class YomiManager extends ExtensionsManager {
 								}
 
 								initExtension(got, context);
+								getManifest().write();
 								ext.set(getExtension(info.packageName));
 							} catch(Throwable e) {
 								t.set(e);
@@ -445,6 +641,8 @@ public abstract class YomiManager extends ExtensionsManager {
 				} catch(PackageManager.NameNotFoundException e) {
 					//App info is no longer available, so it is uninstalled.
 					extensions.remove(id);
+					getManifest().remove(id);
+					getManifest().write();
 				} catch(Throwable e) {
 					t.set(e);
 				}
@@ -0,0 +1,157 @@
+package com.mrboomdev.awery.extensions.support.yomi;
+
+import static com.mrboomdev.awery.util.NiceUtils.stream;
+
+import android.content.pm.PackageInfo;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mrboomdev.awery.util.Parser;
+import com.mrboomdev.awery.util.io.FileUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An on-disk copy of everything that we do learn about yomi extensions while loading them,
+ * so that on the next launch extensions and their providers could be listed without
+ * scanning all installed packages and instantiating main classes.
+ * Entries are being matched by the package name, version code and the last update time,
+ * so any reinstall or update makes an entry stale.
+ */
+public class YomiManifest {
+	private static final String TAG = "YomiManifest";
+	private static final Parser.Adapter<List<Entry>> ADAPTER = Parser.getAdapter(List.class, Entry.class);
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final File file;
+	private boolean isRead;
+
+	public YomiManifest(@NonNull File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Reads the manifest from the disk. Broken or missing file is treated as an empty manifest.
+	 * @return false if there is nothing in the manifest
+	 */
+	public synchronized boolean read() {
+		if(isRead) {
+			return !entries.isEmpty();
+		}
+
+		isRead = true;
+
+		if(!file.exists()) {
+			return false;
+		}
+
+		try(var is = new FileInputStream(file)) {
+			for(var entry : Parser.fromString(ADAPTER, FileUtil.readStream(is))) {
+				if(entry.packageName == null) continue;
+				entries.put(entry.packageName, entry);
+			}
+		} catch(IOException | RuntimeException e) {
+			Log.e(TAG, "Failed to read the manifest, so it'll be rebuilt.", e);
+			entries.clear();
+		}
+
+		return !entries.isEmpty();
+	}
+
+	public synchronized void write() {
+		try {
+			FileUtil.createFile(file);
+
+			FileUtil.writeStream(new FileOutputStream(file), Parser.toString(
+					ADAPTER, new ArrayList<>(entries.values())).getBytes(StandardCharsets.UTF_8));
+		} catch(IOException e) {
+			Log.e(TAG, "Failed to write the manifest!", e);
+		}
+	}
+
+	@Nullable
+	public Entry get(@NonNull String packageName) {
+		return entries.get(packageName);
+	}
+
+	/**
+	 * @return An entry only if it does describe exactly this version of the package.
+	 */
+	@Nullable
+	public Entry getFresh(@NonNull PackageInfo pkg) {
+		var entry = entries.get(pkg.packageName);
+		return (entry != null && entry.matches(pkg)) ? entry : null;
+	}
+
+	@NonNull
+	public Collection<Entry> getAll() {
+		return entries.values();
+	}
+
+	public void put(@NonNull Entry entry) {
+		entries.put(entry.packageName, entry);
+	}
+
+	public void remove(@NonNull String packageName) {
+		entries.remove(packageName);
+	}
+
+	public static class Entry {
+		public String packageName, versionName, label;
+		public long versionCode, lastUpdateTime;
+		public boolean isNsfw;
+		public List<ProviderEntry> providers;
+
+		/**
+		 * Was the extension rejected because of an unsupported version.
+		 * Such extensions are being cached too, so that we won't check them again.
+		 */
+		public String error;
+
+		@SuppressWarnings("deprecation")
+		public boolean matches(@NonNull PackageInfo pkg) {
+			return pkg.packageName.equals(packageName)
+					&& pkg.versionCode == versionCode
+					&& pkg.lastUpdateTime == lastUpdateTime;
+		}
+
+		@NonNull
+		@SuppressWarnings("deprecation")
+		public static Entry create(@NonNull PackageInfo pkg, String label, boolean isNsfw) {
+			var entry = new Entry();
+			entry.packageName = pkg.packageName;
+			entry.versionName = pkg.versionName;
+			entry.versionCode = pkg.versionCode;
+			entry.lastUpdateTime = pkg.lastUpdateTime;
+			entry.label = label;
+			entry.isNsfw = isNsfw;
+			return entry;
+		}
+
+		public void setProviders(@NonNull List<? extends YomiProvider> providers) {
+			this.providers = stream(providers).map(provider -> {
+				var entry = new ProviderEntry();
+				entry.id = provider.getId();
+				entry.name = provider.getName();
+				entry.lang = provider.getLang();
+				entry.features = new ArrayList<>(provider.getFeatures());
+				return entry;
+			}).toList();
+		}
+	}
+
+	public static class ProviderEntry {
+		public String id, name, lang;
+		public List<String> features;
+	}
+}
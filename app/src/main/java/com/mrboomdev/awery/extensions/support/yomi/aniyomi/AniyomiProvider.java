@@ -27,8 +27,11 @@ import com.mrboomdev.awery.extensions.data.CatalogSubtitle;
 import com.mrboomdev.awery.extensions.data.CatalogVideo;
 import com.mrboomdev.awery.extensions.data.CatalogVideoFile;
 import com.mrboomdev.awery.extensions.support.yomi.YomiProvider;
+import com.mrboomdev.awery.ext.data.Media;
 import com.mrboomdev.awery.ext.data.Selection;
 import com.mrboomdev.awery.util.async.AsyncFuture;
+import com.mrboomdev.awery.util.async.AsyncLane;
+import com.mrboomdev.awery.util.async.AsyncPriority;
 import com.mrboomdev.awery.util.async.AsyncUtils;
 import com.mrboomdev.awery.util.exceptions.UnimplementedException;
 import com.mrboomdev.awery.util.exceptions.ZeroResultsException;
@@ -209,12 +212,12 @@ public abstract class AniyomiProvider extends YomiProvider {
 
 	@Override
 	public AsyncFuture<List<? extends CatalogVideo>> getVideos(@NonNull SettingsList filters) {
-		return thread(() -> {
+		return thread(AsyncLane.EXTENSION, AsyncPriority.VISIBLE, () -> {
 			var media = filters.require(
-					ExtensionConstants.FILTER_MEDIA).parseJsonValue(CatalogMedia.class);
+					ExtensionConstants.FILTER_MEDIA).getValue(Media.class);
 
 			var episodes = AniyomiKotlinBridge.getEpisodesList(
-					source, AniyomiMedia.fromMedia(media)).await();
+					source, AniyomiMedia.toSAnime(media)).await();
 
 			if(episodes == null || episodes.isEmpty()) {
 				throw new ZeroResultsException("Aniyomi: No episodes found", R.string.no_episodes_found);
@@ -228,7 +231,7 @@ public abstract class AniyomiProvider extends YomiProvider {
 
 	@Override
 	public AsyncFuture<List<CatalogVideoFile>> getVideoFiles(@NonNull SettingsList filters) {
-		return thread(() -> {
+		return thread(AsyncLane.EXTENSION, AsyncPriority.VISIBLE, () -> {
 			var episode = (CatalogVideo) filters.require(
 					ExtensionConstants.FILTER_EPISODE).getSerializable();
 
@@ -59,6 +59,8 @@ import com.mrboomdev.awery.util.IconStateful;
 import com.mrboomdev.awery.util.Parser;
 import com.mrboomdev.awery.util.TabsTemplate;
 import com.mrboomdev.awery.util.async.AsyncFuture;
+import com.mrboomdev.awery.util.async.AsyncLane;
+import com.mrboomdev.awery.util.async.AsyncPriority;
 import com.mrboomdev.awery.util.ui.EmptyView;
 import com.mrboomdev.awery.util.ui.FadeTransformer;
 
@@ -125,7 +127,7 @@ public class MainActivity extends AppCompatActivity {
 	}
 
 	private void loadCustomTabs() {
-		thread(() -> setupTabs(getDatabase().getTabsDao().getAllTabs()));
+		thread(AsyncLane.DATABASE, AsyncPriority.VISIBLE, () -> setupTabs(getDatabase().getTabsDao().getAllTabs()));
 	}
 
 	private void loadTemplateTabs(String templateName) {
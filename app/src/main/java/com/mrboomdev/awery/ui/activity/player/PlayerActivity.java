@@ -5,6 +5,8 @@ import static com.mrboomdev.awery.app.App.enableEdgeToEdge;
 import static com.mrboomdev.awery.app.App.toast;
 import static com.mrboomdev.awery.app.Lifecycle.cancelDelayed;
 import static com.mrboomdev.awery.app.Lifecycle.runDelayed;
+import static com.mrboomdev.awery.app.data.db.AweryDB.getDatabase;
+import static com.mrboomdev.awery.util.async.AsyncUtils.thread;
 import static com.mrboomdev.awery.util.ui.ViewUtil.setBottomMargin;
 import static com.mrboomdev.awery.util.ui.ViewUtil.setLeftMargin;
 import static com.mrboomdev.awery.util.ui.ViewUtil.setOnApplyInsetsListener;
@@ -51,6 +53,7 @@ import com.mrboomdev.awery.app.data.settings.base.SettingsItem;
 import com.mrboomdev.awery.app.data.settings.base.SettingsList;
 import com.mrboomdev.awery.databinding.ScreenPlayerBinding;
 import com.mrboomdev.awery.extensions.ExtensionConstants;
+import com.mrboomdev.awery.extensions.ProviderScoreboard;
 import com.mrboomdev.awery.extensions.__ExtensionProvider;
 import com.mrboomdev.awery.extensions.data.CatalogSubtitle;
 import com.mrboomdev.awery.extensions.data.CatalogVideo;
@@ -58,8 +61,10 @@ import com.mrboomdev.awery.extensions.data.CatalogVideoFile;
 import com.mrboomdev.awery.generated.AwerySettings;
 import com.mrboomdev.awery.sdk.util.StringUtils;
 import com.mrboomdev.awery.ui.ThemeManager;
+import com.mrboomdev.awery.util.EpisodeIndex;
 import com.mrboomdev.awery.util.NiceUtils;
 import com.mrboomdev.awery.util.async.AsyncFuture;
+import com.mrboomdev.awery.util.async.AsyncLane;
 import com.mrboomdev.awery.util.exceptions.ExceptionDescriptor;
 import com.mrboomdev.awery.util.ui.dialog.DialogBuilder;
 
@@ -72,11 +77,13 @@ import java.util.Set;
 public class PlayerActivity extends AppCompatActivity implements Player.Listener {
 	public static final String ARGUMENT_EPISODE = "episode";
 	public static final String ARGUMENT_EPISODES = "episodes";
+	public static final String ARGUMENT_MEDIA_ID = "media_id";
 
 	public static final String PLAYBACK_ACTION = "AWERY_PLAYBACK";
 	public static final int PLAYBACK_ACTION_RESUME = 1;
 	public static final int PLAYBACK_ACTION_PAUSE = 2;
 	private static final String TAG = "PlayerActivity";
+	private static final long VIDEO_FILES_DEADLINE_MS = 60_000;
 	protected static __ExtensionProvider source;
 	protected final int SHOW_UI_AFTER_MILLIS = 200;
 	protected final int UI_INSETS = WindowInsetsCompat.Type.displayCutout()
@@ -94,7 +101,10 @@ public class PlayerActivity extends AppCompatActivity implements Player.Listener
 	protected boolean isVideoPaused, isVideoBuffering = true, didSelectedVideo;
 	protected int forwardFastClicks, backwardFastClicks;
 	protected List<CatalogVideo> episodes;
+	protected EpisodeIndex<CatalogVideo> episodeIndex;
 	protected CatalogVideo episode;
+	private String mediaId;
+	private long loadEpisodeId;
 	protected CatalogVideoFile video;
 	protected ExoPlayer player;
 	protected int doubleTapSeek, bigSeek;
@@ -291,6 +301,8 @@ public class PlayerActivity extends AppCompatActivity implements Player.Listener
 		setupButton(binding.exit, this::finish);
 		setupButton(binding.settings, controller::openSettingsDialog);
 		setupButton(binding.subtitles, controller::openSubtitlesDialog);
+		setupButton(binding.next, controller::playNextEpisode);
+		setupButton(binding.previous, controller::playPreviousEpisode);
 
 		if(bigSeek > 0) {
 			var time = StringUtils.formatTimer(bigSeek * 1000L);
@@ -436,51 +448,76 @@ public class PlayerActivity extends AppCompatActivity implements Player.Listener
 
 	@SuppressWarnings("unchecked")
 	private void loadData() {
-		onPlaybackStateChanged(Player.STATE_BUFFERING);
-		binding.loadingStatus.setText("Loading videos list...");
 		var intent = getIntent();
-
-		this.episode = (CatalogVideo) intent.getSerializableExtra("episode");
+		var episode = (CatalogVideo) intent.getSerializableExtra("episode");
 		this.episodes = (List<CatalogVideo>) intent.getSerializableExtra("episodes");
+		this.episodeIndex = new EpisodeIndex<>(episodes != null ? episodes : List.of());
+		this.mediaId = intent.getStringExtra(ARGUMENT_MEDIA_ID);
 
 		if(episode != null) {
-			binding.title.setText(episode.getTitle());
-
-			source.getVideoFiles(new SettingsList(
-					new SettingsItem(ExtensionConstants.FILTER_EPISODE, episode)
-			)).addCallback(new AsyncFuture.Callback<>() {
-				@Override
-				public void onSuccess(List<CatalogVideoFile> catalogVideos) {
-					if(isDestroyed()) return;
-
-					runOnUiThread(() -> {
-						if(catalogVideos.size() == 1) {
-							setVideo(catalogVideos.get(0));
-							return;
-						}
-
-						episode.setVideos(catalogVideos);
-						controller.openQualityDialog(true);
-					});
-				}
-
-				@Override
-				public void onFailure(Throwable throwable) {
-					if(isDestroyed()) return;
-
-					var error = new ExceptionDescriptor(throwable);
-					Log.e(TAG, "Failed to load videos list!", throwable);
-
-					toast(error.getTitle(PlayerActivity.this), 1);
-					finish();
-				}
-			});
+			loadEpisode(episode);
 		} else {
 			toast("External videos are not supported yet");
 			finish();
 		}
 	}
 
+	/**
+	 * Loads videos of the episode and starts playing it.
+	 */
+	protected void loadEpisode(@NonNull CatalogVideo episode) {
+		var myId = ++loadEpisodeId;
+		var isSwitched = this.episode != null;
+		this.episode = episode;
+
+		// Everything of the previous episode has nothing to do with this one.
+		this.currentSubtitle = null;
+		this.video = null;
+		this.videoItem = null;
+		this.didSelectedVideo = false;
+
+		// Episodes selected from the list are being marked by the list itself.
+		if(isSwitched && mediaId != null) {
+			thread(AsyncLane.DATABASE, () -> getDatabase().getMediaProgressDao()
+					.saveEpisodeProgress(mediaId, episode.getNumber(), -1));
+		}
+
+		onPlaybackStateChanged(Player.STATE_BUFFERING);
+		binding.loadingStatus.setText("Loading videos list...");
+		binding.title.setText(episode.getTitle());
+		controller.updateEpisodeButtons();
+
+		ProviderScoreboard.track(source, ProviderScoreboard.GET_VIDEO_FILES, VIDEO_FILES_DEADLINE_MS, source.getVideoFiles(new SettingsList(
+				new SettingsItem(ExtensionConstants.FILTER_EPISODE, episode)
+		))).addCallback(new AsyncFuture.Callback<>() {
+			@Override
+			public void onSuccess(List<CatalogVideoFile> catalogVideos) {
+				if(isDestroyed() || myId != loadEpisodeId) return;
+
+				runOnUiThread(() -> {
+					if(catalogVideos.size() == 1) {
+						setVideo(catalogVideos.get(0));
+						return;
+					}
+
+					episode.setVideos(catalogVideos);
+					controller.openQualityDialog(true);
+				});
+			}
+
+			@Override
+			public void onFailure(Throwable throwable) {
+				if(isDestroyed() || myId != loadEpisodeId) return;
+
+				var error = new ExceptionDescriptor(throwable);
+				Log.e(TAG, "Failed to load videos list!", throwable);
+
+				toast(error.getTitle(PlayerActivity.this), 1);
+				finish();
+			}
+		});
+	}
+
 	@RequiresApi(api = Build.VERSION_CODES.O)
 	protected PictureInPictureParams getPipParams() {
 		var pipParams = new PictureInPictureParams.Builder();
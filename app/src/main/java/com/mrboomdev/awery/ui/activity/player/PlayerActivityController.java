@@ -374,6 +374,40 @@ public class PlayerActivityController {
 		fixDialog(dialog.get());
 	}
 
+	public void playNextEpisode() {
+		if(activity.episode == null || activity.episodeIndex == null) return;
+
+		var next = activity.episodeIndex.getNext(activity.episode);
+		if(next == null) return;
+
+		activity.player.stop();
+		activity.loadEpisode(next);
+	}
+
+	public void playPreviousEpisode() {
+		if(activity.episode == null || activity.episodeIndex == null) return;
+
+		var previous = activity.episodeIndex.getPrevious(activity.episode);
+		if(previous == null) return;
+
+		activity.player.stop();
+		activity.loadEpisode(previous);
+	}
+
+	/**
+	 * Dims buttons of episodes which don't exist.
+	 */
+	public void updateEpisodeButtons() {
+		var hasNext = activity.episode != null && activity.episodeIndex != null
+				&& activity.episodeIndex.getNext(activity.episode) != null;
+
+		var hasPrevious = activity.episode != null && activity.episodeIndex != null
+				&& activity.episodeIndex.getPrevious(activity.episode) != null;
+
+		activity.binding.next.setAlpha(hasNext ? 1 : .4f);
+		activity.binding.previous.setAlpha(hasPrevious ? 1 : .4f);
+	}
+
 	public void openQualityDialog(boolean isRequired) {
 		if(activity.episode == null) return;
 
@@ -102,6 +102,7 @@ public class MultiSearchActivity extends AppCompatActivity {
 					var feed = new CatalogFeed();
 					feed.sourceManager = provider.getManager().getId();
 					feed.providerId = provider.getId();
+					feed.extensionId = provider.getExtension().getId();
 					feed.title = provider.getName();
 					return feed;
 				})
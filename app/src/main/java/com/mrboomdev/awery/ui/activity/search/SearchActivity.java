@@ -45,6 +45,7 @@ import com.mrboomdev.awery.app.data.settings.base.SettingsList;
 import com.mrboomdev.awery.databinding.GridMediaCatalogBinding;
 import com.mrboomdev.awery.databinding.ScreenSearchBinding;
 import com.mrboomdev.awery.extensions.ExtensionConstants;
+import com.mrboomdev.awery.extensions.ProviderScoreboard;
 import com.mrboomdev.awery.extensions.__ExtensionProvider;
 import com.mrboomdev.awery.extensions.data.CatalogMedia;
 import com.mrboomdev.awery.extensions.data.CatalogSearchResults;
@@ -86,6 +87,7 @@ public class SearchActivity extends AppCompatActivity {
 	private static final String SAVED_ITEMS = "items";
 	private static final String SAVED_DID_REACHED_END = "did_reached_end";
 	private static final String TAG = "SearchActivity";
+	private static final long SEARCH_DEADLINE_MS = 60_000;
 	private final WeakHashMap<CatalogMedia, Long> ids = new WeakHashMap<>();
 	private final Adapter adapter = new Adapter();
 	private final UniqueIdGenerator idGenerator = new UniqueIdGenerator();
@@ -446,7 +448,8 @@ public class SearchActivity extends AppCompatActivity {
 		loadingAdapter.setEnabled(true);
 		pageFilter.setValue(page);
 
-		source.searchMedia(filters).addCallback(new AsyncFuture.Callback<>() {
+		ProviderScoreboard.track(source, ProviderScoreboard.SEARCH_MEDIA,
+				SEARCH_DEADLINE_MS, source.searchMedia(filters)).addCallback(new AsyncFuture.Callback<>() {
 			@Override
 			public void onSuccess(CatalogSearchResults<? extends CatalogMedia> items) {
 				if(wasSearchId != searchId) return;
@@ -24,7 +24,6 @@ import com.bumptech.glide.Glide;
 import com.google.android.material.theme.overlay.MaterialThemeOverlay;
 import com.mrboomdev.awery.databinding.ItemListEpisodeBinding;
 import com.mrboomdev.awery.ext.data.Media;
-import com.mrboomdev.awery.extensions.data.CatalogMediaProgress;
 import com.mrboomdev.awery.extensions.data.CatalogVideo;
 import com.mrboomdev.awery.sdk.util.UniqueIdGenerator;
 import com.mrboomdev.awery.ui.activity.MediaActivity;
@@ -127,13 +126,8 @@ public class MediaPlayEpisodesAdapter extends RecyclerView.Adapter<MediaPlayEpis
 		holder.updateProgress();
 
 		thread(() -> {
-			var progressDao = getDatabase().getMediaProgressDao();
-
-			var progress = progressDao.get(media.getGlobalId());
-			if(progress == null) progress = new CatalogMediaProgress(media.getGlobalId());
-
-			progress.progresses.put(episode.getNumber(), episodeProgress);
-			progressDao.insert(progress);
+			getDatabase().getMediaProgressDao().saveEpisodeProgress(
+					media.getGlobalId(), episode.getNumber(), episodeProgress);
 
 			if(callback != null) {
 				callback.run();
@@ -19,6 +19,7 @@ import android.content.Intent;
 import android.content.res.ColorStateList;
 import android.graphics.Color;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -48,20 +49,27 @@ import com.mrboomdev.awery.extensions.__Extension;
 import com.mrboomdev.awery.extensions.ExtensionConstants;
 import com.mrboomdev.awery.extensions.__ExtensionProvider;
 import com.mrboomdev.awery.extensions.ExtensionsFactory;
-import com.mrboomdev.awery.extensions.data.CatalogMediaProgress;
+import com.mrboomdev.awery.extensions.ProviderScoreboard;
 import com.mrboomdev.awery.extensions.data.CatalogSearchResults;
 import com.mrboomdev.awery.extensions.data.CatalogVideo;
 import com.mrboomdev.awery.sdk.util.StringUtils;
 import com.mrboomdev.awery.ui.activity.player.PlayerActivity;
 import com.mrboomdev.awery.ui.activity.search.SearchActivity;
 import com.mrboomdev.awery.ui.adapter.MediaPlayEpisodesAdapter;
+import com.mrboomdev.awery.util.EpisodeIndex;
+import com.mrboomdev.awery.util.MediaMatcher;
 import com.mrboomdev.awery.util.MediaUtils;
 import com.mrboomdev.awery.util.NiceUtils;
-import com.mrboomdev.awery.util.Parser;
 import com.mrboomdev.awery.util.async.AsyncFuture;
+import com.mrboomdev.awery.util.async.AsyncLane;
+import com.mrboomdev.awery.util.async.BaseFuture;
+import com.mrboomdev.awery.util.async.ControllableAsyncFuture;
+import com.mrboomdev.awery.util.async.HedgedRace;
+import com.mrboomdev.awery.util.exceptions.CancelledException;
 import com.mrboomdev.awery.util.exceptions.ExceptionDescriptor;
 import com.mrboomdev.awery.util.exceptions.ExtensionComponentMissingException;
 import com.mrboomdev.awery.util.exceptions.ExtensionNotInstalledException;
+import com.mrboomdev.awery.util.exceptions.TimeoutException;
 import com.mrboomdev.awery.util.exceptions.ZeroResultsException;
 import com.mrboomdev.awery.util.ui.EmptyView;
 import com.mrboomdev.awery.util.ui.ViewUtil;
@@ -72,9 +80,9 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class MediaPlayFragment extends Fragment implements MediaPlayEpisodesAdapter.OnEpisodeSelectedListener {
@@ -83,7 +91,21 @@ public class MediaPlayFragment extends Fragment implements MediaPlayEpisodesAdap
 	public static final int VIEW_TYPE_ERROR = 2;
 	public static final int VIEW_TYPE_EPISODE = 3;
 	private static final String TAG = "MediaPlayFragment";
-	private final Map<__ExtensionProvider, ExtensionStatus> sourceStatuses = new HashMap<>();
+	private static final int MAX_SOURCES_IN_FLIGHT = 3;
+	private static final int MAX_TITLES_IN_FLIGHT = 2;
+	private static final long SOURCE_HEDGE_DELAY_MS = 4_000;
+	private static final long TITLE_HEDGE_DELAY_MS = 1_500;
+	/**
+	 * Budget of a single call into a source, like a search or a loading of episodes.
+	 */
+	private static final long STEP_DEADLINE_MS = 30_000;
+	/**
+	 * Budget of the whole resolution of a source, so that each step has it's own budget.
+	 * Steps are a loading of the saved media, a search if it has failed and a loading of episodes.
+	 */
+	private static final long SOURCE_DEADLINE_MS = STEP_DEADLINE_MS * 3;
+	private final Map<__ExtensionProvider, SourceStatus> sourceStatuses = new ConcurrentHashMap<>();
+	private final Map<String, String> resolvedIds = new ConcurrentHashMap<>();
 	private final SettingsItem queryFilter = new SettingsItem(SettingsItemType.STRING, ExtensionConstants.FILTER_QUERY);
 	private final SettingsList filters = new SettingsList(queryFilter,
 			new SettingsItem(SettingsItemType.INTEGER, ExtensionConstants.FILTER_PAGE, 0));
@@ -98,7 +120,8 @@ public class MediaPlayFragment extends Fragment implements MediaPlayEpisodesAdap
 	private __ExtensionProvider selectedSource;
 	private ViewMode viewMode;
 	private Media media;
-	private String searchId, searchTitle;
+	private AsyncFuture<SourceResult> resolveFuture;
+	private volatile String searchId, searchTitle, searchSourceId;
 	private boolean autoChangeSource = true, autoChangeTitle = true, changeSettings = true;
 	private int currentSourceIndex = 0;
 	private long loadId;
@@ -112,22 +135,15 @@ public class MediaPlayFragment extends Fragment implements MediaPlayEpisodesAdap
 		var intent = new Intent(requireContext(), PlayerActivity.class);
 		intent.putExtra(PlayerActivity.ARGUMENT_EPISODE, episode);
 		intent.putExtra(PlayerActivity.ARGUMENT_EPISODES, (Serializable) episodes);
+		intent.putExtra(PlayerActivity.ARGUMENT_MEDIA_ID, media.getGlobalId());
 		startActivity(intent);
 
-		thread(() -> {
-			var dao = getDatabase().getMediaProgressDao();
-
-			var progress = dao.get(media.getGlobalId());
-			if(progress == null) progress = new CatalogMediaProgress(media.getGlobalId());
-
-			progress.lastWatchSource = selectedSource.getId();
-
-			var foundMedia = episodesAdapter.getMedia();
-			progress.lastId = foundMedia.getGlobalId();
-			progress.lastTitle = foundMedia.getTitle();
+		var source = selectedSource;
+		var foundMedia = episodesAdapter.getMedia();
+		resolvedIds.put(source.getGlobalId(), foundMedia.getGlobalId());
 
-			dao.insert(progress);
-		});
+		thread(AsyncLane.DATABASE, () -> getDatabase().getMediaProgressDao().saveLastWatched(
+				media.getGlobalId(), source.getId(), source.getGlobalId(), foundMedia.getGlobalId(), foundMedia.getTitle()));
 	}
 
 	private enum ExtensionStatus {
@@ -146,6 +162,11 @@ public class MediaPlayFragment extends Fragment implements MediaPlayEpisodesAdap
 		}
 	}
 
+	/**
+	 * @param latencyMs How long did it take to get the result or the error from the source.
+	 */
+	private record SourceStatus(ExtensionStatus status, long latencyMs) {}
+
 	public MediaPlayFragment(Media media) {
 		this.media = media;
 
@@ -237,9 +258,10 @@ public class MediaPlayFragment extends Fragment implements MediaPlayEpisodesAdap
 
 			title.setText(item.getName());
 
-			var status = sourceStatuses.get(item);
+			var sourceStatus = sourceStatuses.get(item);
 
-			if(status != null) {
+			if(sourceStatus != null) {
+				var status = sourceStatus.status();
 				var statusColor = status == ExtensionStatus.OK ? Color.GREEN : Color.RED;
 
 				var iconRes = switch(status) {
@@ -383,35 +405,38 @@ public class MediaPlayFragment extends Fragment implements MediaPlayEpisodesAdap
 			if(progress != null) {
 				searchId = progress.lastId;
 				searchTitle = progress.lastTitle;
+				searchSourceId = progress.lastWatchSource;
 
-				providers.sort((a, b) -> {
-					if(a.getId().equals(progress.lastWatchSource)) return -1;
-					if(b.getId().equals(progress.lastWatchSource)) return 1;
+				if(progress.resolvedIds != null) {
+					resolvedIds.putAll(progress.resolvedIds);
+				}
+			}
 
-					if(mediaSource != null) {
-						if(a.getId().equals(mediaSource.getId())) return -1;
-						if(b.getId().equals(mediaSource.getId())) return 1;
-					}
+			var lastWatchSource = progress != null ? progress.lastWatchSource : null;
+			ProviderScoreboard.load();
 
-					return 0;
-				});
+			// The last used source goes first, then the source of the media and then the healthiest ones.
+			providers.sort(((Comparator<__ExtensionProvider>) (a, b) -> {
+				if(lastWatchSource != null) {
+					if(a.getId().equals(lastWatchSource)) return -1;
+					if(b.getId().equals(lastWatchSource)) return 1;
+				}
 
-				sourcesDropdownAdapter.setItems(providers);
-			} else if(mediaSource != null) {
-				providers.sort((a, b) -> {
+				if(mediaSource != null) {
 					if(a.getId().equals(mediaSource.getId())) return -1;
 					if(b.getId().equals(mediaSource.getId())) return 1;
-					return 0;
-				});
+				}
 
-				sourcesDropdownAdapter.setItems(providers);
-			}
+				return 0;
+			}).thenComparing(ProviderScoreboard.comparator(ProviderScoreboard.SEARCH_MEDIA, ProviderScoreboard.GET_VIDEOS)));
+
+			sourcesDropdownAdapter.setItems(providers);
 
 			if(mediaSource != null) {
-				mediaSource.getVideos(new SettingsList(
+				ProviderScoreboard.track(mediaSource, ProviderScoreboard.GET_VIDEOS, STEP_DEADLINE_MS, mediaSource.getVideos(new SettingsList(
 						new SettingsItem(SettingsItemType.INTEGER, ExtensionConstants.FILTER_PAGE, 0),
-						new SettingsItem(SettingsItemType.JSON, ExtensionConstants.FILTER_MEDIA, Parser.toString(Media.class, media))
-				)).addCallback(new AsyncFuture.Callback<>() {
+						new SettingsItem(ExtensionConstants.FILTER_MEDIA, media)
+				))).addCallback(new AsyncFuture.Callback<>() {
 					@Override
 					public void onSuccess(List<? extends CatalogVideo> catalogEpisodes) {
 						templateEpisodes = catalogEpisodes;
@@ -441,53 +466,33 @@ public class MediaPlayFragment extends Fragment implements MediaPlayEpisodesAdap
 		variantsAdapter.getBinding((binding) -> binding.variantWrapper.setVisibility(View.GONE));
 	}
 
+	/**
+	 * Loads episodes of the exact media, without any searching.
+	 */
 	private void loadEpisodesFromSource(@NonNull __ExtensionProvider source, Media media) {
 		var myId = ++loadId;
 
+		// The user has picked the media, so other sources shouldn't be queried anymore.
+		if(resolveFuture != null) {
+			resolveFuture.cancel(true);
+		}
+		var startTime = SystemClock.elapsedRealtime();
+
 		variantsAdapter.getBinding(binding -> runOnUiThread(() -> {
 			binding.searchStatus.setText("Searching episodes for \"" + media.getTitle() + "\"...");
 			binding.searchStatus.setOnClickListener(v -> MediaUtils.launchMediaActivity(requireContext(), media));
 		}));
 
-		source.getVideos(new SettingsList(
+		ProviderScoreboard.track(source, ProviderScoreboard.GET_VIDEOS, STEP_DEADLINE_MS, source.getVideos(new SettingsList(
 				new SettingsItem(SettingsItemType.INTEGER, ExtensionConstants.FILTER_PAGE, 0),
-				new SettingsItem(SettingsItemType.JSON, ExtensionConstants.FILTER_MEDIA, Parser.toString(Media.class, media))
-		)).addCallback(new AsyncFuture.Callback<>() {
+				new SettingsItem(ExtensionConstants.FILTER_MEDIA, media)
+		))).addCallback(new AsyncFuture.Callback<>() {
 			@Override
 			public void onSuccess(List<? extends CatalogVideo> episodes) {
 				if(source != selectedSource || myId != loadId) return;
 
-				sourceStatuses.put(source, ExtensionStatus.OK);
-
-				episodes = new ArrayList<>(episodes);
-				episodes.sort(Comparator.comparing(CatalogVideo::getNumber));
-				var finalEpisodes = episodes;
-
-				if(templateEpisodes != null) {
-					for(var episode : episodes) {
-						var templateEpisode = stream(templateEpisodes)
-								.filter(e -> e.getNumber() == episode.getNumber())
-								.findFirst().orElse(null);
-
-						if(templateEpisode == null) {
-							continue;
-						}
-
-						if(episode.getBanner() == null) {
-							episode.setBanner(templateEpisode.getBanner());
-						}
-					}
-				}
-
-				runOnUiThread(() -> {
-					variantsAdapter.getBinding(binding -> {
-						binding.searchStatus.setText("Selected \"" + media.getTitle() + "\"");
-						binding.searchStatus.setOnClickListener(v -> MediaUtils.launchMediaActivity(requireContext(), media));
-					});
-
-					placeholderAdapter.setEnabled(false);
-					episodesAdapter.setItems(media, finalEpisodes);
-				});
+				sourceStatuses.put(source, new SourceStatus(ExtensionStatus.OK, SystemClock.elapsedRealtime() - startTime));
+				showEpisodes(media, episodes);
 			}
 
 			@Override
@@ -495,9 +500,9 @@ public class MediaPlayFragment extends Fragment implements MediaPlayEpisodesAdap
 				if(source != selectedSource || myId != loadId) return;
 
 				Log.e(TAG, "Failed to load episodes!", e);
+				handleExceptionMark(source, e, SystemClock.elapsedRealtime() - startTime);
 
 				runOnUiThread(() -> {
-					handleExceptionMark(source, e);
 					if(autoSelectNextSource()) return;
 					handleExceptionUi(source, e);
 				});
@@ -505,10 +510,33 @@ public class MediaPlayFragment extends Fragment implements MediaPlayEpisodesAdap
 		});
 	}
 
+	private void showEpisodes(Media media, List<? extends CatalogVideo> episodes) {
+		var finalEpisodes = EpisodeIndex.<CatalogVideo>merge(episodes, templateEpisodes).getEpisodes();
+
+		runOnUiThread(() -> {
+			variantsAdapter.getBinding(binding -> {
+				binding.searchStatus.setText("Selected \"" + media.getTitle() + "\"");
+				binding.searchStatus.setOnClickListener(v -> MediaUtils.launchMediaActivity(requireContext(), media));
+			});
+
+			placeholderAdapter.setEnabled(false);
+			episodesAdapter.setItems(media, finalEpisodes);
+		});
+	}
+
+	/**
+	 * Searches the media in the source. If the source may be changed automatically,
+	 * then the following sources are being tried at the same time, so that a dead one won't block others.
+	 * The first source which has returned any episodes wins and all others are being cancelled.
+	 */
 	private void loadEpisodesFromSource(@NonNull __ExtensionProvider source) {
 		this.selectedSource = source;
 		var myId = ++loadId;
 
+		if(resolveFuture != null) {
+			resolveFuture.cancel(true);
+		}
+
 		placeholderAdapter.setEnabled(true);
 		placeholderAdapter.getBinding(EmptyView::startLoading);
 
@@ -520,8 +548,6 @@ public class MediaPlayFragment extends Fragment implements MediaPlayEpisodesAdap
 			}
 		});
 
-		var lastUsedTitleIndex = new AtomicInteger(0);
-
 		if(autoChangeSource) {
 			queryFilter.setValue(media.getTitle());
 		}
@@ -529,86 +555,260 @@ public class MediaPlayFragment extends Fragment implements MediaPlayEpisodesAdap
 		variantsAdapter.getBinding((binding) ->
 				binding.searchDropdown.setText(queryFilter.getStringValue(), false));
 
-		var foundMediaCallback = new AsyncFuture.Callback<CatalogSearchResults<? extends Media>>() {
+		var context = getContext();
+		if(context == null) return;
+
+		variantsAdapter.getBinding(binding -> runOnUiThread(() -> {
+			binding.searchStatus.setText("Searching for \"" + (searchId != null
+					? searchTitle : queryFilter.getStringValue()) + "\"...");
+
+			binding.searchStatus.setOnClickListener(null);
+		}));
+
+		var candidates = autoChangeSource
+				? List.copyOf(providers.subList(Math.max(0, providers.indexOf(source)), providers.size()))
+				: List.of(source);
+
+		var attempts = new ArrayList<HedgedRace.Attempt<SourceResult>>(candidates.size());
+
+		for(var candidate : candidates) {
+			attempts.add(() -> new SourceResolution(candidate).start());
+		}
+
+		var future = HedgedRace.race(attempts, MAX_SOURCES_IN_FLIGHT, SOURCE_HEDGE_DELAY_MS, SOURCE_DEADLINE_MS,
+				(index, result, throwable, latency) -> {
+					var candidate = candidates.get(index);
+
+					if(throwable == null) {
+						sourceStatuses.put(candidate, new SourceStatus(ExtensionStatus.OK, latency));
+					} else {
+						Log.e(TAG, "Failed to load episodes from " + candidate.getName(), throwable);
+						handleExceptionMark(candidate, throwable, latency);
+					}
+				});
+
+		resolveFuture = future;
 
+		future.addCallback(new AsyncFuture.Callback<>() {
 			@Override
-			public void onSuccess(@NonNull CatalogSearchResults<? extends Media> media) {
-				if(source != selectedSource || myId != loadId) return;
-				loadEpisodesFromSource(source, media.get(0));
+			public void onSuccess(SourceResult result) {
+				if(myId != loadId) return;
+
+				runOnUiThread(() -> {
+					if(myId != loadId) return;
+
+					selectedSource = result.source();
+					currentSourceIndex = providers.indexOf(result.source());
+					searchId = null;
+
+					variantsAdapter.getBinding((binding) ->
+							binding.sourceDropdown.setText(result.source().getName(), false));
+
+					showEpisodes(result.media(), result.episodes());
+				});
 			}
 
 			@Override
 			public void onFailure(Throwable e) {
-				if(myId != loadId) return;
-
-				Log.e(TAG, "Failed to search media!", e);
+				if(myId != loadId || e instanceof CancelledException) return;
 
 				runOnUiThread(() -> {
-					var context = getContext();
-					if(context == null) return;
+					currentSourceIndex = providers.size();
+					handleExceptionUi(selectedSource, e);
+				});
+			}
+		});
+	}
+
+	/**
+	 * Remembers which media was found in the source, so that the next time we won't search it again.
+	 */
+	private void saveResolvedId(@NonNull __ExtensionProvider source, @NonNull String mediaId) {
+		resolvedIds.put(source.getGlobalId(), mediaId);
 
-					if(autoChangeTitle && media.getTitles() != null && lastUsedTitleIndex.get() < media.getTitles().length - 1) {
-						var newIndex = lastUsedTitleIndex.incrementAndGet();
-						queryFilter.setValue(media.getTitles()[newIndex]);
-						source.searchMedia(filters).addCallback(this);
+		thread(AsyncLane.DATABASE, () -> getDatabase().getMediaProgressDao()
+				.saveResolvedId(media.getGlobalId(), source.getGlobalId(), mediaId));
+	}
 
-						variantsAdapter.getBinding(binding -> runOnUiThread(() -> {
-							binding.searchStatus.setText("Searching for \"" + queryFilter.getStringValue() + "\"...");
-							binding.searchStatus.setOnClickListener(null);
-						}));
+	private record SourceResult(__ExtensionProvider source, Media media, List<? extends CatalogVideo> episodes) {}
 
-						variantsAdapter.getBinding((binding) -> binding.searchDropdown.setText(
-								queryFilter.getStringValue(), false));
-					} else {
-						handleExceptionMark(source, e);
-						if(autoSelectNextSource()) return;
-						handleExceptionUi(source, e);
+	/**
+	 * Finds the media in a single source and loads it's episodes.
+	 * All alternative titles are being searched at the same time.
+	 */
+	private class SourceResolution {
+		private final ControllableAsyncFuture<SourceResult> future = new ControllableAsyncFuture<>();
+		private final __ExtensionProvider source;
+		private final String savedId, savedTitle;
+		private volatile BaseFuture current;
+		private volatile boolean isSearched;
+
+		private SourceResolution(@NonNull __ExtensionProvider source) {
+			this.source = source;
+
+			var isSavedSource = searchId != null && source.getId().equals(searchSourceId);
+
+			// If the user has chosen a title manually, then we don't want to use an old result.
+			var resolvedId = autoChangeTitle ? resolvedIds.get(source.getGlobalId()) : null;
+
+			// The last watched media may have been picked by the user, so it goes before the automatic match.
+			this.savedId = isSavedSource ? searchId : resolvedId;
+			this.savedTitle = isSavedSource ? searchTitle : null;
+
+			future.onCancelled(() -> {
+				var current = this.current;
+				if(current != null) current.cancel(true);
+			});
+		}
+
+		@NonNull
+		public AsyncFuture<SourceResult> start() {
+			if(savedId == null) {
+				searchByTitles();
+				return future;
+			}
+
+			var getMedia = ProviderScoreboard.track(source,
+					ProviderScoreboard.GET_MEDIA, STEP_DEADLINE_MS, source.getMedia(savedId));
+			setCurrent(getMedia);
+
+			getMedia.addCallback(new AsyncFuture.Callback<>() {
+				@Override
+				public void onSuccess(Media media) {
+					loadEpisodes(savedTitle == null ? media : new Media.Builder(media)
+							.setTitles(savedTitle)
+							.build());
+				}
+
+				@Override
+				public void onFailure(Throwable t) {
+					Log.e(TAG, "Failed to get the saved media, so we'll search it.", t);
+					searchByTitles();
+				}
+			});
+
+			return future;
+		}
+
+		/**
+		 * The resolution may be cancelled right before the step was assigned,
+		 * so the step is being cancelled if nobody waits for it anymore.
+		 */
+		private void setCurrent(@NonNull BaseFuture step) {
+			current = step;
+
+			if(future.isDone()) {
+				step.cancel(true);
+			}
+		}
+
+		/**
+		 * Results of every search are being compared with all known titles,
+		 * so usually the first search is enough.
+		 */
+		private void searchByTitles() {
+			if(future.isDone()) return;
+			isSearched = true;
+
+			var titles = new ArrayList<String>();
+			titles.add(queryFilter.getStringValue());
+
+			if(autoChangeTitle && media.getTitles() != null) {
+				for(var title : media.getTitles()) {
+					if(title != null && !titles.contains(title)) {
+						titles.add(title);
 					}
-				});
+				}
 			}
-		};
 
-		var context = getContext();
-		if(context == null) return;
+			var attempts = new ArrayList<HedgedRace.Attempt<Media>>(titles.size());
+
+			for(var title : titles) {
+				attempts.add(() -> search(title));
+			}
 
-		if(searchId != null) {
-			variantsAdapter.getBinding(binding -> runOnUiThread(() -> {
-				binding.searchStatus.setText("Searching for \"" + searchTitle + "\"...");
-				binding.searchStatus.setOnClickListener(null);
-			}));
+			var search = HedgedRace.race(attempts, MAX_TITLES_IN_FLIGHT,
+					TITLE_HEDGE_DELAY_MS, STEP_DEADLINE_MS, null);
 
-			source.getMedia(searchId).addCallback(new AsyncFuture.Callback<>() {
+			setCurrent(search);
+
+			search.addCallback(new AsyncFuture.Callback<>() {
 				@Override
 				public void onSuccess(Media media) {
-					if(source != selectedSource || myId != loadId) return;
-
-					media = new Media.Builder(media)
-							.setTitles(searchTitle)
-							.build();
+					loadEpisodes(media);
+				}
 
-					loadEpisodesFromSource(source, media);
-					searchId = null;
+				@Override
+				public void onFailure(Throwable t) {
+					future.fail(t);
 				}
+			});
+		}
 
+		@NonNull
+		private AsyncFuture<Media> search(String title) {
+			var result = new ControllableAsyncFuture<Media>();
+
+			var search = ProviderScoreboard.track(source, ProviderScoreboard.SEARCH_MEDIA, STEP_DEADLINE_MS,
+					source.searchMedia(new SettingsList(
+							new SettingsItem(SettingsItemType.STRING, ExtensionConstants.FILTER_QUERY, title),
+							new SettingsItem(SettingsItemType.INTEGER, ExtensionConstants.FILTER_PAGE, 0))));
+
+			result.onCancelled(() -> search.cancel(true));
+
+			search.addCallback(new AsyncFuture.Callback<>() {
 				@Override
-				public void onFailure(Throwable e) {
-					if(source != selectedSource || myId != loadId) return;
+				public void onSuccess(CatalogSearchResults<? extends Media> results) {
+					// Title chosen by the user is trusted, so just take the closest result.
+					var match = MediaMatcher.findBest(media, results, autoChangeTitle);
 
-					variantsAdapter.getBinding(binding -> runOnUiThread(() -> {
-						binding.searchStatus.setText("Searching for \"" + queryFilter.getStringValue() + "\"...");
-						binding.searchStatus.setOnClickListener(null);
-					}));
+					if(match == null) {
+						result.fail(new ZeroResultsException("No matching media was found", R.string.no_media_found));
+						return;
+					}
 
-					source.searchMedia(filters).addCallback(foundMediaCallback);
+					result.complete(match.media());
+				}
+
+				@Override
+				public void onFailure(Throwable t) {
+					result.fail(t);
 				}
 			});
-		} else {
-			variantsAdapter.getBinding(binding -> runOnUiThread(() -> {
-				binding.searchStatus.setText("Searching for \"" + queryFilter.getStringValue() + "\"...");
-				binding.searchStatus.setOnClickListener(null);
-			}));
 
-			source.searchMedia(filters).addCallback(foundMediaCallback);
+			return result;
+		}
+
+		private void loadEpisodes(Media media) {
+			if(future.isDone()) return;
+
+			var getVideos = ProviderScoreboard.track(source, ProviderScoreboard.GET_VIDEOS, STEP_DEADLINE_MS,
+					source.getVideos(new SettingsList(
+							new SettingsItem(SettingsItemType.INTEGER, ExtensionConstants.FILTER_PAGE, 0),
+							new SettingsItem(ExtensionConstants.FILTER_MEDIA, media))));
+
+			setCurrent(getVideos);
+
+			getVideos.addCallback(new AsyncFuture.Callback<>() {
+				@Override
+				public void onSuccess(List<? extends CatalogVideo> episodes) {
+					if(episodes == null || episodes.isEmpty()) {
+						future.fail(new ZeroResultsException("No episodes was found", R.string.no_episodes_found));
+						return;
+					}
+
+					if(isSearched) {
+						saveResolvedId(source, media.getGlobalId());
+					}
+
+					future.complete(new SourceResult(source, media, episodes));
+				}
+
+				@Override
+				public void onFailure(Throwable t) {
+					future.fail(t);
+				}
+			});
 		}
 	}
 
@@ -625,8 +825,7 @@ public class MediaPlayFragment extends Fragment implements MediaPlayEpisodesAdap
 		return true;
 	}
 
-	private void handleExceptionMark(__ExtensionProvider source, Throwable throwable) {
-		if(source != selectedSource) return;
+	private void handleExceptionMark(__ExtensionProvider source, Throwable throwable, long latencyMs) {
 		var error = new ExceptionDescriptor(throwable);
 
 		/*sourceStatuses.put(source, switch(ExceptionDescriptor.getReason(throwable)) {
@@ -634,9 +833,11 @@ public class MediaPlayFragment extends Fragment implements MediaPlayEpisodesAdap
 			case OTHER, UNIMPLEMENTED -> ExtensionStatus.BROKEN_PARSER;
 		});*/
 
-		if(throwable instanceof ZeroResultsException) sourceStatuses.put(source, ExtensionStatus.NOT_FOUND);
-		else if(error.isNetworkException()) sourceStatuses.put(source, ExtensionStatus.OFFLINE);
-		else sourceStatuses.put(source, ExtensionStatus.BROKEN_PARSER);
+		var status = (throwable instanceof ZeroResultsException) ? ExtensionStatus.NOT_FOUND
+				: (error.isNetworkException() || throwable instanceof TimeoutException) ? ExtensionStatus.OFFLINE
+				: ExtensionStatus.BROKEN_PARSER;
+
+		sourceStatuses.put(source, new SourceStatus(status, latencyMs));
 	}
 
 	private void handleExceptionUi(__ExtensionProvider source, Throwable throwable) {
@@ -660,6 +861,15 @@ public class MediaPlayFragment extends Fragment implements MediaPlayEpisodesAdap
 		}));
 	}
 
+	@Override
+	public void onDestroy() {
+		super.onDestroy();
+
+		if(resolveFuture != null) {
+			resolveFuture.cancel(true);
+		}
+	}
+
 	@Nullable
 	@Override
 	public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -31,18 +31,23 @@ import com.mrboomdev.awery.app.data.settings.base.SettingsList;
 import com.mrboomdev.awery.databinding.ScreenFeedBinding;
 import com.mrboomdev.awery.extensions.ExtensionConstants;
 import com.mrboomdev.awery.extensions.ExtensionsFactory;
+import com.mrboomdev.awery.extensions.ProviderScoreboard;
 import com.mrboomdev.awery.extensions.data.CatalogFeed;
 import com.mrboomdev.awery.extensions.data.CatalogMedia;
 import com.mrboomdev.awery.extensions.data.CatalogSearchResults;
 import com.mrboomdev.awery.ui.adapter.MediaCategoriesAdapter;
 import com.mrboomdev.awery.util.MediaUtils;
 import com.mrboomdev.awery.util.async.AsyncFuture;
+import com.mrboomdev.awery.util.async.AsyncLane;
+import com.mrboomdev.awery.util.async.AsyncPriority;
 import com.mrboomdev.awery.util.exceptions.ZeroResultsException;
 import com.mrboomdev.awery.util.ui.EmptyView;
 import com.mrboomdev.awery.util.ui.adapter.SingleViewAdapter;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
@@ -53,6 +58,7 @@ public abstract class FeedsFragment extends Fragment {
 	public static final String ARGUMENT_FEEDS = "feeds";
 	public static final String ARGUMENT_TAB = "tab";
 	private static final String TAG = "FeedsFragment";
+	private static final long FEED_DEADLINE_MS = 30_000;
 	private final Queue<CatalogFeed> pendingFeeds = new LinkedBlockingQueue<>();
 	private final Queue<CatalogFeed> loadingFeeds = new LinkedBlockingQueue<>();
 	private ScreenFeedBinding binding;
@@ -108,8 +114,14 @@ public abstract class FeedsFragment extends Fragment {
 			failedRowsAdapter.setFeeds(Collections.emptyList());
 			setContentBehindToolbarEnabled(false);
 
-			thread(() -> {
-				var processedFeeds = CatalogFeed.processFeeds(feeds);
+			thread(AsyncLane.EXTENSION, AsyncPriority.VISIBLE, () -> {
+				ProviderScoreboard.load();
+				var processedFeeds = new ArrayList<>(CatalogFeed.processFeeds(feeds));
+
+				// Rows are being shown in the order in which they did load,
+				// so healthy providers are loaded first to not wait for broken ones.
+				processedFeeds.sort(Comparator.comparingDouble(feed -> -ProviderScoreboard.getScore(
+						feed.getProviderGlobalId(), ProviderScoreboard.SEARCH_MEDIA)));
 
 				if(processedFeeds.isEmpty()) {
 					tryToLoadNextFeed(null, currentLoadId);
@@ -267,7 +279,8 @@ public abstract class FeedsFragment extends Fragment {
 				}
 
 				filters.add(new SettingsItem(SettingsItemType.INTEGER, ExtensionConstants.FILTER_PAGE, 0));
-				provider.searchMedia(filters).addCallback(callback);
+				ProviderScoreboard.track(provider, ProviderScoreboard.SEARCH_MEDIA,
+						FEED_DEADLINE_MS, provider.searchMedia(filters)).addCallback(callback);
 			}
 
 			@Override
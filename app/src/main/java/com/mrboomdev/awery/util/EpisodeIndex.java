@@ -0,0 +1,166 @@
+package com.mrboomdev.awery.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mrboomdev.awery.extensions.data.CatalogVideo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Episodes sorted by their numbers, which can be found by a number without walking through all of them.
+ * Numbers are being kept in a primitive hash table, so shows with thousands of episodes are fine.
+ */
+public class EpisodeIndex<T extends CatalogVideo> {
+	private static final int EMPTY = -1;
+	private final List<T> episodes;
+	private final int[] keys, positions;
+	private final int mask;
+
+	/**
+	 * @param episodes Won't be modified. May be in any order.
+	 */
+	public EpisodeIndex(@NonNull List<? extends T> episodes) {
+		this.episodes = new ArrayList<>(episodes);
+
+		// Comparing primitives, so that no floats are being boxed.
+		this.episodes.sort((a, b) -> Float.compare(a.getNumber(), b.getNumber()));
+
+		var capacity = Integer.highestOneBit(Math.max(2, this.episodes.size() * 2 - 1)) << 1;
+		this.keys = new int[capacity];
+		this.positions = new int[capacity];
+		this.mask = capacity - 1;
+
+		Arrays.fill(positions, EMPTY);
+
+		for(int i = 0; i < this.episodes.size(); i++) {
+			put(this.episodes.get(i).getNumber(), i);
+		}
+	}
+
+	/**
+	 * Copies banners, titles and descriptions from the template episodes with the same numbers,
+	 * if the episode doesn't have them. Does only a single pass over both lists.
+	 * @return Sorted episodes
+	 */
+	@NonNull
+	public static <T extends CatalogVideo> EpisodeIndex<T> merge(
+			@NonNull List<? extends T> episodes,
+			@Nullable List<? extends CatalogVideo> template
+	) {
+		var index = new EpisodeIndex<T>(episodes);
+		if(template == null || template.isEmpty()) return index;
+
+		var templateIndex = new EpisodeIndex<CatalogVideo>(template);
+
+		for(var episode : index.episodes) {
+			var templateEpisode = templateIndex.get(episode.getNumber());
+			if(templateEpisode == null) continue;
+
+			if(episode.getBanner() == null) {
+				episode.setBanner(templateEpisode.getBanner());
+			}
+
+			if(episode.getTitle() == null) {
+				episode.setTitle(templateEpisode.getTitle());
+			}
+
+			if(episode.getDescription() == null) {
+				episode.setDescription(templateEpisode.getDescription());
+			}
+		}
+
+		return index;
+	}
+
+	/**
+	 * @return First episode with this number
+	 */
+	@Nullable
+	public T get(float number) {
+		var position = indexOf(number);
+		return position == EMPTY ? null : episodes.get(position);
+	}
+
+	/**
+	 * @return Position in {@link #getEpisodes()} or -1 if there is no such episode
+	 */
+	public int indexOf(float number) {
+		var key = toKey(number);
+
+		for(int slot = hash(key); ; slot = (slot + 1) & mask) {
+			var position = positions[slot];
+			if(position == EMPTY) return EMPTY;
+			if(keys[slot] == key) return position;
+		}
+	}
+
+	/**
+	 * @return Episode with the closest bigger number
+	 */
+	@Nullable
+	public T getNext(@NonNull CatalogVideo current) {
+		var position = indexOf(current.getNumber());
+
+		// Skip all episodes with the same number
+		for(int i = position + 1; position != EMPTY && i < episodes.size(); i++) {
+			if(episodes.get(i).getNumber() != current.getNumber()) {
+				return episodes.get(i);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return Episode with the closest smaller number
+	 */
+	@Nullable
+	public T getPrevious(@NonNull CatalogVideo current) {
+		var position = indexOf(current.getNumber());
+		return position > 0 ? episodes.get(position - 1) : null;
+	}
+
+	/**
+	 * @return Episodes sorted by their numbers
+	 */
+	@NonNull
+	public List<T> getEpisodes() {
+		return Collections.unmodifiableList(episodes);
+	}
+
+	public int size() {
+		return episodes.size();
+	}
+
+	private void put(float number, int position) {
+		var key = toKey(number);
+
+		for(int slot = hash(key); ; slot = (slot + 1) & mask) {
+			if(positions[slot] == EMPTY) {
+				keys[slot] = key;
+				positions[slot] = position;
+				return;
+			}
+
+			// Keep the first one, because the list is sorted.
+			if(keys[slot] == key) return;
+		}
+	}
+
+	/**
+	 * Adding a zero turns -0 into 0, so that both of them will be the same key, as they are equal.
+	 */
+	private static int toKey(float number) {
+		return Float.floatToIntBits(number + 0f);
+	}
+
+	private int hash(int key) {
+		// Spreads bits, because numbers of episodes differ only in a few of them.
+		var hash = key * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+}
@@ -0,0 +1,130 @@
+package com.mrboomdev.awery.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mrboomdev.awery.ext.data.Media;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import me.xdrop.fuzzywuzzy.FuzzySearch;
+
+/**
+ * Finds the same media in search results of another source.
+ * Titles are being compared fuzzily, because every source does write them a bit differently,
+ * and then the year, the count of episodes and the type make the choice more precise.
+ */
+public class MediaMatcher {
+	/**
+	 * Minimal score of a candidate to be counted as the same media. From 0 to 100.
+	 */
+	public static final int THRESHOLD = 70;
+	private static final Pattern PUNCTUATION = Pattern.compile("[\\p{Punct}\\p{IsPunctuation}]+");
+	private static final Pattern SPACES = Pattern.compile("\\s+");
+
+	/**
+	 * @param requireThreshold If false, then the best candidate will be returned even if it's score is too low.
+	 * @return Null if nothing did match
+	 */
+	@Nullable
+	public static Match findBest(@NonNull Media original, @NonNull List<? extends Media> candidates, boolean requireThreshold) {
+		var titles = normalizeTitles(original.getTitles());
+		Match best = null;
+
+		for(var candidate : candidates) {
+			var score = getScore(original, titles, candidate);
+
+			if(best == null || score > best.score()) {
+				best = new Match(candidate, score);
+			}
+		}
+
+		if(best == null || (requireThreshold && best.score() < THRESHOLD)) {
+			return null;
+		}
+
+		return best;
+	}
+
+	/**
+	 * @return Similarity of the media from 0 to 100
+	 */
+	public static int getScore(@NonNull Media original, @NonNull Media candidate) {
+		return getScore(original, normalizeTitles(original.getTitles()), candidate);
+	}
+
+	private static int getScore(@NonNull Media original, @NonNull String[] originalTitles, @NonNull Media candidate) {
+		var candidateTitles = normalizeTitles(candidate.getTitles());
+		int score = 0;
+
+		for(var originalTitle : originalTitles) {
+			for(var candidateTitle : candidateTitles) {
+				score = Math.max(score, Math.max(
+						FuzzySearch.ratio(originalTitle, candidateTitle),
+						FuzzySearch.tokenSortRatio(originalTitle, candidateTitle)));
+
+				if(score == 100) break;
+			}
+		}
+
+		var originalYear = getYear(original);
+		var candidateYear = getYear(candidate);
+
+		if(originalYear != null && candidateYear != null) {
+			var difference = Math.abs(originalYear - candidateYear);
+
+			// Sources don't agree about dates of the first release sometimes, so a single year is fine.
+			if(difference == 0) score += 10;
+			else if(difference > 1) score -= 20;
+		}
+
+		var originalEpisodes = original.getEpisodesCount();
+		var candidateEpisodes = candidate.getEpisodesCount();
+
+		if(originalEpisodes != null && candidateEpisodes != null && originalEpisodes > 0 && candidateEpisodes > 0) {
+			if(originalEpisodes.equals(candidateEpisodes)) score += 5;
+			else if(Math.abs(originalEpisodes - candidateEpisodes) > Math.max(2, originalEpisodes / 10)) score -= 10;
+		}
+
+		if(original.getType() != null && candidate.getType() != null) {
+			score += original.getType() == candidate.getType() ? 5 : -15;
+		}
+
+		return Math.max(0, Math.min(100, score));
+	}
+
+	@Nullable
+	private static Integer getYear(@NonNull Media media) {
+		var date = media.getReleaseDate();
+		if(date == null || date <= 0) return null;
+
+		var calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(date);
+		return calendar.get(Calendar.YEAR);
+	}
+
+	@NonNull
+	private static String[] normalizeTitles(@Nullable String[] titles) {
+		if(titles == null) return new String[0];
+		var result = new String[titles.length];
+
+		for(int i = 0; i < titles.length; i++) {
+			result[i] = normalize(titles[i]);
+		}
+
+		return result;
+	}
+
+	@NonNull
+	private static String normalize(@Nullable String title) {
+		if(title == null) return "";
+
+		title = PUNCTUATION.matcher(title.toLowerCase(Locale.ROOT)).replaceAll(" ");
+		return SPACES.matcher(title).replaceAll(" ").trim();
+	}
+
+	public record Match(@NonNull Media media, int score) {}
+}
@@ -24,6 +24,7 @@ import android.view.View;
 import android.widget.ImageView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.widget.LinearLayoutCompat;
 import androidx.core.app.ShareCompat;
 
@@ -41,6 +42,7 @@ import com.mrboomdev.awery.extensions.data.CatalogMediaProgress;
 import com.mrboomdev.awery.generated.AwerySettings;
 import com.mrboomdev.awery.sdk.util.Callbacks;
 import com.mrboomdev.awery.ui.activity.MediaActivity;
+import com.mrboomdev.awery.util.async.AsyncLane;
 import com.mrboomdev.awery.util.ui.dialog.DialogBuilder;
 import com.mrboomdev.awery.util.ui.fields.EditTextField;
 
@@ -48,6 +50,8 @@ import org.jetbrains.annotations.Contract;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class MediaUtils {
@@ -56,6 +60,11 @@ public class MediaUtils {
 	public static final String ACTION_COMMENTS = "comments";
 	public static final String ACTION_RELATIONS = "relations";
 
+	/**
+	 * SQLite before 3.32 does not allow more arguments in a single query.
+	 */
+	private static final int MAX_QUERY_ARGUMENTS = 999;
+
 	public static void launchMediaActivity(Context context, @NonNull Media media, String action) {
 		var intent = new Intent(context, MediaActivity.class);
 		intent.putExtra(MediaActivity.EXTRA_MEDIA, media);
@@ -67,29 +76,62 @@ public class MediaUtils {
 		launchMediaActivity(context, media, ACTION_INFO);
 	}
 
+	/**
+	 * Progresses of all items are being loaded at once instead of making a query per item.
+	 */
 	@NonNull
 	public static Collection<? extends Media> filterMediaSync(
 			@NonNull Collection<? extends Media> items
 	) {
+		var progresses = getProgresses(items);
+		var badTags = NicePreferences.getPrefs().getStringSet(AwerySettings.GLOBAL_EXCLUDED_TAGS);
+		var hideLibrary = AwerySettings.HIDE_LIBRARY_ENTRIES.getValue();
+
 		return stream(items)
-				.filter(item -> !isMediaFilteredSync(item))
+				.filter(item -> !isMediaFilteredSync(item, progresses.get(item.getGlobalId()), badTags, hideLibrary))
 				.toList();
 	}
 
+	/**
+	 * @return Saved progresses of media, mapped by their global ids. Media without a progress are absent.
+	 */
+	@NonNull
+	public static Map<String, CatalogMediaProgress> getProgresses(@NonNull Collection<? extends Media> items) {
+		var ids = stream(items).map(Media::getGlobalId).distinct().toList();
+		var dao = getDatabase().getMediaProgressDao();
+		var result = new HashMap<String, CatalogMediaProgress>(ids.size());
+
+		for(int i = 0; i < ids.size(); i += MAX_QUERY_ARGUMENTS) {
+			for(var progress : dao.getAll(ids.subList(i, Math.min(ids.size(), i + MAX_QUERY_ARGUMENTS)))) {
+				result.put(progress.globalId, progress);
+			}
+		}
+
+		return result;
+	}
+
 	public static void filterMedia(
 			@NonNull Collection<? extends Media> items,
 			Callbacks.Callback1<Collection<? extends Media>> callback
 	) {
-		thread(() -> callback.run(filterMediaSync(items)));
+		thread(AsyncLane.DATABASE, () -> callback.run(filterMediaSync(items)));
 	}
 
 	public static boolean isMediaFilteredSync(@NonNull Media media) {
-		var prefs = NicePreferences.getPrefs();
-		var badTags = prefs.getStringSet(AwerySettings.GLOBAL_EXCLUDED_TAGS);
-		var saved = getDatabase().getMediaProgressDao().get(media.getGlobalId());
+		return isMediaFilteredSync(media,
+				getDatabase().getMediaProgressDao().get(media.getGlobalId()),
+				NicePreferences.getPrefs().getStringSet(AwerySettings.GLOBAL_EXCLUDED_TAGS),
+				AwerySettings.HIDE_LIBRARY_ENTRIES.getValue());
+	}
 
+	private static boolean isMediaFilteredSync(
+			@NonNull Media media,
+			@Nullable CatalogMediaProgress saved,
+			Set<String> badTags,
+			boolean hideLibrary
+	) {
 		if(saved != null) {
-			if(AwerySettings.HIDE_LIBRARY_ENTRIES.getValue() && saved.getListsCount() > 0) {
+			if(hideLibrary && saved.getListsCount() > 0) {
 				return true;
 			}
 
@@ -104,7 +146,7 @@ public class MediaUtils {
 
 	@Contract(pure = true)
 	public static void isMediaFiltered(@NonNull Media media, Callbacks.Callback1<Boolean> callback) {
-		thread(() -> callback.run(isMediaFilteredSync(media)));
+		thread(AsyncLane.DATABASE, () -> callback.run(isMediaFilteredSync(media)));
 	}
 
 	public static void openMediaActionsMenu(Context context, @NonNull Media media, Runnable updateCallback) {
@@ -11,6 +11,8 @@ import com.squareup.moshi.Types;
 import java.io.IOException;
 import java.lang.reflect.Type;
 
+import okio.BufferedSource;
+
 public class Parser {
 	private static final Moshi moshi = new Moshi.Builder().add(new ParserAdapter()).build();
 
@@ -45,6 +47,14 @@ public class Parser {
 		return requireNonNull(adapter.adapter.fromJson(json));
 	}
 
+	/**
+	 * Reads json right from the source, so that it won't be copied into a string first.
+	 */
+	@NonNull
+	public static <T> T fromSource(@NonNull Adapter<T> adapter, BufferedSource source) throws IOException {
+		return requireNonNull(adapter.adapter.fromJson(source));
+	}
+
 	@NonNull
 	@SuppressWarnings("unchecked")
 	public static <T> Adapter<T> getAdapter(@NonNull Class<?> type, Class<?>... generics) {
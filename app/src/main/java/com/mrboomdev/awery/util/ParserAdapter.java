@@ -2,7 +2,6 @@ package com.mrboomdev.awery.util;
 
 import static com.mrboomdev.awery.app.App.toast;
 import static com.mrboomdev.awery.app.Lifecycle.getAnyActivity;
-import static com.mrboomdev.awery.util.NiceUtils.stream;
 
 import android.util.Base64;
 import android.util.Log;
@@ -17,6 +16,7 @@ import com.mrboomdev.awery.ext.data.Setting;
 import com.mrboomdev.awery.ext.data.Settings;
 import com.mrboomdev.awery.sdk.util.StringUtils;
 import com.squareup.moshi.FromJson;
+import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.ToJson;
 import com.squareup.moshi.Types;
@@ -36,11 +36,17 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-import java9.util.stream.Collectors;
-
 @SuppressWarnings("unused")
 public class ParserAdapter {
 	private static final String TAG = "ParserAdapter";
+	private static final Moshi MOSHI = new Moshi.Builder().build();
+	private static final JsonAdapter<SettingsList> SETTINGS_LIST_ADAPTER = MOSHI.adapter(SettingsList.class);
+
+	private static final JsonAdapter<Map<String, String>> STRING_MAP_ADAPTER =
+			MOSHI.adapter(Types.newParameterizedType(Map.class, String.class, String.class));
+
+	private static final JsonAdapter<Map<Float, Long>> FLOAT_LONG_MAP_ADAPTER =
+			MOSHI.adapter(Types.newParameterizedType(Map.class, Float.class, Long.class));
 
 	@NonNull
 	@FromJson
@@ -114,11 +120,8 @@ public class ParserAdapter {
 			return Collections.emptyMap();
 		}
 
-		var adapter = new Moshi.Builder().build().<Map<String, String>>
-				adapter(Types.newParameterizedType(Map.class, String.class, String.class));
-
 		try {
-			return adapter.fromJson(value);
+			return STRING_MAP_ADAPTER.fromJson(value);
 		} catch(IOException e) {
 			toast("Your data has been corrupted! Sorry, but we can't do anything with it :(");
 			Log.e(TAG, "Failed to parse string to map", e);
@@ -128,9 +131,7 @@ public class ParserAdapter {
 
 	@ToJson
 	public static String mapToString(@NonNull Map<String, String> value) {
-		return stream(value.entrySet())
-				.map(entry -> "\"" + entry.getKey() + "\":\"" + entry.getValue() + "\"")
-				.collect(Collectors.joining(",", "{", "}"));
+		return STRING_MAP_ADAPTER.toJson(value);
 	}
 
 	@ToJson
@@ -147,7 +148,7 @@ public class ParserAdapter {
 
 	@NonNull
 	public static String filtersListToString(SettingsList value) {
-		return new Moshi.Builder().build().adapter(SettingsList.class).toJson(value);
+		return SETTINGS_LIST_ADAPTER.toJson(value);
 	}
 
 	@FromJson
@@ -156,11 +157,8 @@ public class ParserAdapter {
 			return Collections.emptyMap();
 		}
 
-		var adapter = new Moshi.Builder().build().<Map<Float, Long>>
-				adapter(Types.newParameterizedType(Map.class, Float.class, Long.class));
-
 		try {
-			return adapter.fromJson(value);
+			return FLOAT_LONG_MAP_ADAPTER.fromJson(value);
 		} catch(IOException e) {
 			toast("Your data has been corrupted! Sorry, but we can't do anything with it :(");
 			Log.e(TAG, "Failed to parse string to map", e);
@@ -187,9 +185,7 @@ public class ParserAdapter {
 
 	@ToJson
 	public static String floatLongMapToString(@NonNull Map<Float, Long> value) {
-		return stream(value.entrySet())
-				.map(entry -> "\"" + entry.getKey() + "\":" + entry.getValue())
-				.collect(Collectors.joining(",", "{", "}"));
+		return FLOAT_LONG_MAP_ADAPTER.toJson(value);
 	}
 
 	@ToJson
@@ -1,11 +1,33 @@
 package com.mrboomdev.awery.util.async;
 
-import static com.mrboomdev.awery.util.NiceUtils.asRuntimeException;
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public abstract class AsyncFuture<T> extends BaseFuture {
-	public abstract void addCallback(Callback<T> callback);
 
-	public abstract T getResult();
+	public void addCallback(Callback<T> callback) {
+		whenDone(() -> {
+			var throwable = getThrowable();
+
+			if(throwable != null) {
+				callback.onFailure(throwable);
+				return;
+			}
+
+			try {
+				callback.onSuccess(getResult());
+			} catch(Throwable e) {
+				callback.onFailure(e);
+			}
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	public T getResult() {
+		return (T) getValue();
+	}
 
 	public void addFailureCallback() {
 		addCallback(new Callback<>() {
@@ -19,150 +41,46 @@ public abstract class AsyncFuture<T> extends BaseFuture {
 		});
 	}
 
-	@Override
-	protected boolean hasResult() {
-		return getResult() != null || getThrowable() != null;
-	}
-
-	protected abstract boolean runInNewThread();
-
 	public <E> AsyncFuture<E> then(CallableResult<T, E> runnable) {
-		return then(runnable, !runInNewThread());
+		var next = new ControllableAsyncFuture<E>();
+		chain(next, null, () -> next.complete(runnable.run(getResult())));
+		return next;
 	}
 
-	public <E> AsyncFuture<E> then(CallableResult<T, E> runnable, boolean async) {
-		return AsyncUtils.controllableFuture(future -> addCallback(new Callback<>() {
-			@Override
-			public void onSuccess(T result) {
-				(runInNewThread() ? AsyncUtils.thread(() -> {
-					try {
-						return runnable.run(result);
-					} catch(Throwable e) {
-						throw asRuntimeException(e);
-					}
-				}) : new AsyncFutureNow<E>() {
-					private E nextResult;
-					private Throwable t;
-
-					{
-						try {
-							nextResult = runnable.run(result);
-						} catch(Throwable e) {
-							t = e;
-						}
-					}
-
-					@Override
-					public Throwable getThrowable() {
-						return t;
-					}
-
-					@Override
-					public E getResult() {
-						return nextResult;
-					}
-
-					@Override
-					protected boolean runInNewThread() {
-						return true;
-					}
-				}).addCallback(new Callback<>() {
-					@Override
-					public void onSuccess(E result) throws Throwable {
-						future.complete(result);
-					}
-
-					@Override
-					public void onFailure(Throwable t) {
-						future.fail(t);
-					}
-				});
-			}
-
-			@Override
-			public void onFailure(Throwable t) {
-				future.fail(t);
-			}
-		}), async);
+	/**
+	 * Same as {@link #then(CallableResult)}, but the runnable will be ran on the specified lane.
+	 */
+	public <E> AsyncFuture<E> then(@NonNull AsyncLane lane, CallableResult<T, E> runnable) {
+		var next = new ControllableAsyncFuture<E>();
+		chain(next, lane, () -> next.complete(runnable.run(getResult())));
+		return next;
 	}
 
 	public EmptyFuture thenEmpty(Callable1<T> runnable) {
-		return AsyncUtils.controllableEmptyFuture(future -> addCallback(new Callback<>() {
-			@Override
-			public void onSuccess(T result) {
-				AsyncUtils.thread(() -> {
-					try {
-						runnable.run(result);
-						future.complete();
-					} catch(Throwable e) {
-						future.fail(e);
-					}
-				});
-			}
+		var next = new ControllableEmptyFuture();
 
-			@Override
-			public void onFailure(Throwable t) {
-				future.fail(t);
-			}
-		}), !runInNewThread());
-	}
+		chain(next, null, () -> {
+			runnable.run(getResult());
+			next.complete();
+		});
 
-	public <E> AsyncFuture<E> thenControllable(ControllableResultCallback<T, E> callback) {
-		return thenControllable(callback, !runInNewThread());
+		return next;
 	}
 
 	public interface ControllableResultCallback<I, O> {
 		void start(I input, ControllableAsyncFuture<O> future) throws Throwable;
 	}
 
-	public <E> AsyncFuture<E> thenControllable(ControllableResultCallback<T, E> callback, boolean newThread) {
-		return AsyncUtils.controllableFuture(future -> addCallback(new Callback<>() {
-			@Override
-			public void onSuccess(T result) {
-				AsyncUtils.controllableFuture((ControllableAsyncFuture.Callback<E>) future1 -> callback.start(result, future1))
-						.addCallback(new Callback<>() {
-							@Override
-							public void onSuccess(E result) throws Throwable {
-								future.complete(result);
-							}
-
-							@Override
-							public void onFailure(Throwable t) {
-								future.fail(t);
-							}
-						});
-			}
-
-			@Override
-			public void onFailure(Throwable t) {
-				future.fail(t);
-			}
-		}), newThread);
+	public <E> AsyncFuture<E> thenControllable(ControllableResultCallback<T, E> callback) {
+		var next = new ControllableAsyncFuture<E>();
+		chain(next, null, () -> callback.start(getResult(), next));
+		return next;
 	}
 
 	public EmptyFuture thenEmptyControllable(ControllableEmptyFuture.Callback callback) {
-		return AsyncUtils.controllableEmptyFuture(future -> addCallback(new Callback<>() {
-			@Override
-			public void onSuccess(T result) {
-				AsyncUtils.controllableEmptyFuture(callback, !runInNewThread())
-						.addCallback(new EmptyFuture.Callback() {
-							@Override
-							public void onSuccess() throws Throwable {
-								future.complete();
-							}
-
-							@Override
-							public void onFailure(Throwable t) {
-								future.fail(t);
-							}
-						});
-			}
-
-			@Override
-			public void onFailure(Throwable t) {
-				future.fail(t);
-			}
-		}), !runInNewThread());
+		var next = new ControllableEmptyFuture();
+		chain(next, null, () -> callback.start(next));
+		return next;
 	}
 
 	public interface DefaultValueCallback<T> {
@@ -178,8 +96,24 @@ public abstract class AsyncFuture<T> extends BaseFuture {
 	}
 
 	public T await() throws Throwable {
-		AsyncUtils.await(this::isDone);
+		awaitDone();
+		return getResultOrThrow();
+	}
+
+	/**
+	 * Same as {@link #await()}, but gives up after the timeout.
+	 * @throws TimeoutException if the future wasn't done in time
+	 * @throws InterruptedException if the current thread was interrupted while waiting
+	 */
+	public T await(long timeout, TimeUnit unit) throws Throwable {
+		if(!awaitDone(timeout, unit)) {
+			throw new TimeoutException("Future wasn't done in " + timeout + " " + unit);
+		}
+
+		return getResultOrThrow();
+	}
 
+	private T getResultOrThrow() throws Throwable {
 		var t = getThrowable();
 
 		if(t != null) {
@@ -214,4 +148,4 @@ public abstract class AsyncFuture<T> extends BaseFuture {
 
 		default void onFinally() {}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,228 @@
+package com.mrboomdev.awery.util.async;
+
+import static com.mrboomdev.awery.app.Lifecycle.isMainThread;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of threads dedicated to a single kind of work,
+ * so that a flood of tasks of one kind can't starve the others.
+ * Use it through {@link AsyncUtils#thread(AsyncLane, AsyncPriority, AsyncUtils.ThreadRunnable)}.
+ */
+public enum AsyncLane {
+	/**
+	 * Parsing, sorting, filtering and other work which doesn't wait for anything.
+	 */
+	CPU("AsyncCpu", Runtime.getRuntime().availableProcessors(), 256, Thread.NORM_PRIORITY),
+	/**
+	 * Network and file operations. Used by default.
+	 */
+	IO("AsyncIo", 16, 1024, Thread.NORM_PRIORITY),
+	/**
+	 * Calls into extensions and their loading.
+	 */
+	EXTENSION("AsyncExtension", Math.max(2, Runtime.getRuntime().availableProcessors()), 512, Thread.NORM_PRIORITY - 1),
+	DATABASE("AsyncDatabase", 4, 512, Thread.NORM_PRIORITY + 1);
+
+	private static final long KEEP_ALIVE_SECONDS = 30;
+	/**
+	 * Max count of threads which may be added to a lane while it's workers are waiting.
+	 */
+	private static final int MAX_SPARE_THREADS = 32;
+	private static final AtomicLong sequence = new AtomicLong();
+	private final AtomicLong callerRunsCount = new AtomicLong();
+	private final AtomicInteger blockedThreads = new AtomicInteger();
+	private final ThreadPoolExecutor executor;
+	private final LaneQueue queue;
+	private final int maxThreads, queueLimit;
+
+	AsyncLane(String threadName, int maxThreads, int queueLimit, int threadPriority) {
+		this.maxThreads = maxThreads;
+		this.queueLimit = queueLimit;
+		this.queue = new LaneQueue(queueLimit);
+
+		var threadNumber = new AtomicInteger(1);
+
+		this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue, runnable -> {
+			var thread = new LaneThread(this, runnable, threadName + "-" + threadNumber.getAndIncrement());
+			thread.setDaemon(false);
+			thread.setPriority(threadPriority);
+			return thread;
+		}, (runnable, executor) -> {
+			var task = (PrioritizedTask) runnable;
+
+			// Never block the ui thread and never delay the visible work.
+			if(isMainThread() || task.priority == AsyncPriority.VISIBLE || executor.isShutdown()) {
+				queue.forceOffer(task);
+				return;
+			}
+
+			// Otherwise slow down the producer by running a task on it's own thread.
+			callerRunsCount.incrementAndGet();
+			task.run();
+		});
+
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	void execute(@NonNull AsyncPriority priority, @NonNull Runnable runnable) {
+		executor.execute(new PrioritizedTask(priority, sequence.getAndIncrement(), runnable));
+	}
+
+	/**
+	 * @return The lane which owns the current thread or null, if the thread isn't a lane worker.
+	 */
+	@Nullable
+	static AsyncLane current() {
+		return Thread.currentThread() instanceof LaneThread thread ? thread.lane : null;
+	}
+
+	/**
+	 * Must be called by a lane worker before it will wait for another task,
+	 * so that a spare thread would be started in the meantime.
+	 * Without it all workers could wait for tasks which are stuck in the queue.
+	 * At most {@link #MAX_SPARE_THREADS} are being added, so that long chains of nested waits won't create
+	 * an unlimited count of threads. After that, waiting workers don't add any threads and queued tasks
+	 * are being ran only by free workers or by producers, if the queue is full.
+	 * Don't forget to call {@link #endBlocking()} after the waiting is done!
+	 */
+	synchronized void beginBlocking() {
+		resize(blockedThreads.incrementAndGet());
+	}
+
+	synchronized void endBlocking() {
+		resize(blockedThreads.decrementAndGet());
+	}
+
+	private void resize(int blocked) {
+		var size = maxThreads + Math.min(MAX_SPARE_THREADS, blocked);
+		if(size == executor.getCorePoolSize()) return;
+
+		// The max size can't be less than the core size, so the order does matter.
+		if(size > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(size);
+			executor.setCorePoolSize(size);
+		} else {
+			executor.setCorePoolSize(size);
+			executor.setMaximumPoolSize(size);
+		}
+	}
+
+	/**
+	 * @return Count of tasks which are waiting for a free thread.
+	 */
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	public int getQueueLimit() {
+		return queueLimit;
+	}
+
+	/**
+	 * @return Count of threads which are running a task right now.
+	 */
+	public int getActiveThreads() {
+		return executor.getActiveCount();
+	}
+
+	/**
+	 * @return Count of threads which are waiting for another task to finish.
+	 */
+	public int getBlockedThreads() {
+		return blockedThreads.get();
+	}
+
+	/**
+	 * @return Count of threads which are currently alive, including idle ones.
+	 */
+	public int getPoolSize() {
+		return executor.getPoolSize();
+	}
+
+	public int getMaxThreads() {
+		return maxThreads;
+	}
+
+	public long getCompletedTasks() {
+		return executor.getCompletedTaskCount();
+	}
+
+	/**
+	 * @return Count of tasks which were ran on the submitter's thread because the queue was full.
+	 */
+	public long getCallerRunsCount() {
+		return callerRunsCount.get();
+	}
+
+	@NonNull
+	@Override
+	public String toString() {
+		return name() + "{active=" + getActiveThreads()
+				+ ", blocked=" + getBlockedThreads()
+				+ ", pool=" + getPoolSize()
+				+ ", queue=" + getQueueDepth() + "/" + queueLimit
+				+ ", completed=" + getCompletedTasks()
+				+ ", callerRuns=" + getCallerRunsCount() + "}";
+	}
+
+	private static class LaneThread extends Thread {
+		private final AsyncLane lane;
+
+		public LaneThread(AsyncLane lane, Runnable runnable, String name) {
+			super(runnable, name);
+			this.lane = lane;
+		}
+	}
+
+	private static class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+		private final AsyncPriority priority;
+		private final Runnable runnable;
+		private final long sequence;
+
+		public PrioritizedTask(AsyncPriority priority, long sequence, Runnable runnable) {
+			this.priority = priority;
+			this.sequence = sequence;
+			this.runnable = runnable;
+		}
+
+		@Override
+		public void run() {
+			runnable.run();
+		}
+
+		@Override
+		public int compareTo(@NonNull PrioritizedTask other) {
+			var result = priority.compareTo(other.priority);
+			return result != 0 ? result : Long.compare(sequence, other.sequence);
+		}
+	}
+
+	/**
+	 * An priority queue which refuses new items after reaching a limit,
+	 * so that the executor would reject them.
+	 */
+	private static class LaneQueue extends PriorityBlockingQueue<Runnable> {
+		private final int limit;
+
+		public LaneQueue(int limit) {
+			this.limit = limit;
+		}
+
+		@Override
+		public boolean offer(Runnable runnable) {
+			return size() < limit && super.offer(runnable);
+		}
+
+		public void forceOffer(Runnable runnable) {
+			super.offer(runnable);
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package com.mrboomdev.awery.util.async;
+
+/**
+ * Order in which queued tasks of the same {@link AsyncLane} are being picked up.
+ * Tasks with the same priority are ran in the order they were submitted.
+ */
+public enum AsyncPriority {
+	/**
+	 * Something that user is looking at right now.
+	 */
+	VISIBLE,
+	DEFAULT,
+	/**
+	 * Prefetching, backups and any other work nobody is waiting for.
+	 */
+	BACKGROUND
+}
@@ -2,60 +2,36 @@ package com.mrboomdev.awery.util.async;
 
 import static com.mrboomdev.awery.app.Lifecycle.isMainThread;
 import static com.mrboomdev.awery.app.Lifecycle.runOnUiThread;
-import static com.mrboomdev.awery.util.NiceUtils.EMPTY_OBJECT;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.google.common.util.concurrent.FutureCallback;
-import com.google.common.util.concurrent.Futures;
 import com.mrboomdev.awery.sdk.util.Callbacks;
 import com.mrboomdev.awery.util.exceptions.CancelledException;
+import com.mrboomdev.awery.util.exceptions.TimeoutException;
 
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.Range;
 
-import java.util.ArrayDeque;
-import java.util.Queue;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 public class AsyncUtils {
+	private static final int BACKOFF_YIELDS = 16;
+	private static final long BACKOFF_MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+	private static final long BACKOFF_MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
 	private static final Timer timer = new Timer();
 
-	private static final ExecutorService threadsPool = new ThreadPoolExecutor(
-			0, Integer.MAX_VALUE,
-			60L, TimeUnit.SECONDS,
-			new SynchronousQueue<>(),
-			new ThreadFactory() {
-				private final ThreadGroup group = Thread.currentThread().getThreadGroup();
-				private final AtomicInteger threadNumber = new AtomicInteger(1);
-
-				@Override
-				public Thread newThread(Runnable r) {
-					Thread t = new Thread(group, r, "AsyncFuture-" + threadNumber.getAndIncrement(), 0);
-
-					if(t.isDaemon()) {
-						t.setDaemon(false);
-					}
-
-					if(t.getPriority() != Thread.NORM_PRIORITY) {
-						t.setPriority(Thread.NORM_PRIORITY);
-					}
-
-					return t;
-				}
-			});
+	/**
+	 * Lane being used if the caller didn't choose one.
+	 * Most of our background work is waiting for the network or the disk.
+	 */
+	public static final AsyncLane DEFAULT_LANE = AsyncLane.IO;
 
 	/**
 	 * Run an action asynchronously. Prefer this method to the manual Thread object creation.
@@ -64,10 +40,27 @@ public class AsyncUtils {
 	@NonNull
 	@Contract("_ -> new")
 	public static EmptyFuture thread(ThreadEmptyRunnable action) {
-		return controllableEmptyFuture(future -> {
+		return thread(DEFAULT_LANE, AsyncPriority.DEFAULT, action);
+	}
+
+	@NonNull
+	@Contract("_, _ -> new")
+	public static EmptyFuture thread(@NonNull AsyncLane lane, ThreadEmptyRunnable action) {
+		return thread(lane, AsyncPriority.DEFAULT, action);
+	}
+
+	/**
+	 * Run an action asynchronously on a specific lane.
+	 * @param lane What kind of work is it, so that it won't compete with other kinds.
+	 * @param priority Tasks with higher priority are being ran first if all threads of the lane are busy.
+	 */
+	@NonNull
+	@Contract("_, _, _ -> new")
+	public static EmptyFuture thread(@NonNull AsyncLane lane, @NonNull AsyncPriority priority, ThreadEmptyRunnable action) {
+		return createEmptyFuture(future -> {
 			action.run();
 			future.complete();
-		});
+		}, lane, priority);
 	}
 
 	public interface ThreadEmptyRunnable {
@@ -89,418 +82,136 @@ public class AsyncUtils {
 		return task;
 	}
 
+	/**
+	 * @return A future which fails with the {@link TimeoutException} if the original one didn't finish in time.
+	 * The original future is being cancelled in that case, and also if the returned one was cancelled.
+	 */
 	@NonNull
-	public static <T> ControllableAsyncFuture<T> controllableFuture(@NonNull ControllableAsyncFuture.Callback<T> callback) {
-		return controllableFuture(callback, true);
-	}
-
-	@NonNull
-	public static <T> ControllableAsyncFuture<T> controllableFuture(@NonNull ControllableAsyncFuture.Callback<T> callback, boolean async) {
-		// Since we cannot directly access an thread from the queue we should to just patiently wait.
-		var theThread = new AtomicReference<Thread>();
-		var interrupt = new AtomicBoolean();
-
-		var future = new BaseControllableAsyncFuture<T>() {
-			@Override
-			protected void interrupt() {
-				if(!async) {
-					return;
-				}
+	public static <T> AsyncFuture<T> withDeadline(@NonNull AsyncFuture<T> future, long deadlineMs) {
+		var result = new ControllableAsyncFuture<T>();
 
-				interrupt.set(true);
+		var task = runDelayed(() -> {
+			result.fail(new TimeoutException("Didn't finish in " + deadlineMs + "ms"));
+			future.cancel(true);
+		}, deadlineMs);
 
-				if(theThread.get() != null) {
-					theThread.get().interrupt();
-				}
-			}
+		result.onCancelled(() -> {
+			task.cancel();
+			future.cancel(true);
+		});
 
+		future.addCallback(new AsyncFuture.Callback<>() {
 			@Override
-			protected boolean runInNewThread() {
-				return async;
+			public void onSuccess(T t) {
+				task.cancel();
+				result.complete(t);
 			}
-		};
 
-		if(!async) {
-			try {
-				callback.start(future);
-			} catch(Throwable t) {
-				future.fail(t);
+			@Override
+			public void onFailure(Throwable t) {
+				task.cancel();
+				result.fail(t);
 			}
-		} else {
-			threadsPool.submit(() -> {
-				theThread.set(Thread.currentThread());
-
-				if(interrupt.get()) {
-					theThread.get().interrupt();
-				}
-
-				try {
-					callback.start(future);
-				} catch(Throwable t) {
-					future.fail(t);
-				}
-			});
-		}
+		});
 
-		return future;
+		return result;
 	}
 
 	@NonNull
-	public static ControllableEmptyFuture controllableEmptyFuture(@NonNull ControllableEmptyFuture.Callback callback) {
-		return controllableEmptyFuture(callback, true);
+	public static <T> ControllableAsyncFuture<T> controllableFuture(@NonNull ControllableAsyncFuture.Callback<T> callback) {
+		return controllableFuture(callback, true);
 	}
 
 	@NonNull
-	public static ControllableEmptyFuture controllableEmptyFuture(@NonNull ControllableEmptyFuture.Callback callback, boolean async) {
-		// Since we cannot directly access an thread from the queue we should to just patiently wait.
-		var theThread = new AtomicReference<Thread>();
-		var interrupt = new AtomicBoolean();
-
-		var future = new ControllableEmptyFuture() {
-			private final Queue<EmptyFuture.Callback> callbacks = new ArrayDeque<>();
-			private Throwable throwable;
-			private boolean isCancelled, didDone;
-
-			@Override
-			public void complete() {
-				if(hasResult()) return;
-				this.didDone = true;
-
-				EmptyFuture.Callback nextCallback;
-				while((nextCallback = callbacks.poll()) != null) {
-					try {
-						nextCallback.onSuccess();
-					} catch(Throwable e) {
-						nextCallback.onFailure(e);
-					}
-				}
-			}
-
-			@Override
-			public void fail(Throwable throwable) {
-				if(hasResult()) return;
-				this.throwable = throwable;
-
-				EmptyFuture.Callback nextCallback;
-				while((nextCallback = callbacks.poll()) != null) {
-					nextCallback.onFailure(throwable);
-				}
-			}
-
-			@Override
-			public boolean cancel(boolean mayInterruptIfRunning) {
-				if(isDone()) return false;
-				isCancelled = true;
-
-				if(mayInterruptIfRunning) {
-					interrupt.set(true);
-
-					if(theThread.get() != null) {
-						theThread.get().interrupt();
-					}
-				}
-
-				fail(new CancelledException());
-				return true;
-			}
-
-			@Override
-			public void addCallback(EmptyFuture.Callback callback) {
-				if(throwable != null) {
-					callback.onFailure(throwable);
-				}
-
-				if(didDone) {
-					try {
-						callback.onSuccess();
-					} catch(Throwable e) {
-						callback.onFailure(e);
-						return;
-					}
-
-					return;
-				}
-
-				callbacks.add(callback);
-			}
-
-			@Override
-			public boolean isCancelled() {
-				return isCancelled;
-			}
-
-			@Override
-			public boolean isDone() {
-				return didDone || throwable != null;
-			}
-
-			@Override
-			public Throwable getThrowable() {
-				return throwable;
-			}
-
-			@Override
-			protected boolean runInNewThread() {
-				return async;
-			}
-		};
+	public static <T> ControllableAsyncFuture<T> controllableFuture(@NonNull ControllableAsyncFuture.Callback<T> callback, boolean async) {
+		return createFuture(callback, async ? DEFAULT_LANE : null, AsyncPriority.DEFAULT);
+	}
 
-		if(!async) {
-			try {
-				callback.start(future);
-			} catch(Throwable t) {
-				future.fail(t);
-			}
-		} else {
-			threadsPool.submit(() -> {
-				theThread.set(Thread.currentThread());
-
-				if(interrupt.get()) {
-					theThread.get().interrupt();
-				}
-
-				try {
-					callback.start(future);
-				} catch(Throwable t) {
-					future.fail(t);
-				}
-			});
-		}
+	@NonNull
+	public static <T> ControllableAsyncFuture<T> controllableFuture(
+			@NonNull AsyncLane lane,
+			@NonNull AsyncPriority priority,
+			@NonNull ControllableAsyncFuture.Callback<T> callback
+	) {
+		return createFuture(callback, lane, priority);
+	}
 
+	/**
+	 * @param lane Lane to run the callback on. If null, then the callback will be ran on the current thread.
+	 */
+	@NonNull
+	private static <T> ControllableAsyncFuture<T> createFuture(
+			@NonNull ControllableAsyncFuture.Callback<T> callback,
+			@Nullable AsyncLane lane,
+			@NonNull AsyncPriority priority
+	) {
+		var future = new ControllableAsyncFuture<T>();
+		future.start(lane, priority, () -> callback.start(future));
 		return future;
 	}
 
-	private abstract static class BaseControllableAsyncFuture<T> extends ControllableAsyncFuture<T> {
-		protected final Queue<AsyncFuture.Callback<T>> callbacks = new ArrayDeque<>();
-		protected T result;
-		protected Throwable throwable;
-		protected boolean isCancelled;
-
-		@Override
-		public void complete(T result) {
-			if(hasResult()) return;
-			this.result = result;
-
-			AsyncFuture.Callback<T> nextCallback;
-			while((nextCallback = callbacks.poll()) != null) {
-				try {
-					nextCallback.onSuccess(result);
-				} catch(Throwable e) {
-					nextCallback.onFailure(e);
-				}
-			}
-		}
-
-		@Override
-		public void fail(Throwable throwable) {
-			if(hasResult()) return;
-			this.throwable = throwable;
-
-			AsyncFuture.Callback<T> nextCallback;
-			while((nextCallback = callbacks.poll()) != null) {
-				nextCallback.onFailure(throwable);
-			}
-		}
-
-		@Override
-		public boolean cancel(boolean mayInterruptIfRunning) {
-			if(isDone()) return false;
-			isCancelled = true;
-
-			if(mayInterruptIfRunning) {
-				interrupt();
-			}
-
-			fail(new CancelledException());
-			return true;
-		}
-
-		protected abstract void interrupt();
-
-		@Override
-		public void addCallback(AsyncFuture.Callback<T> callback) {
-			if(isDone()) {
-				if(result != null) {
-					try {
-						callback.onSuccess(result);
-					} catch(Throwable e) {
-						callback.onFailure(e);
-						return;
-					}
-				}
-
-				if(throwable != null) {
-					callback.onFailure(throwable);
-				}
-
-				return;
-			}
-
-			callbacks.add(callback);
-		}
-
-		@Override
-		public T getResult() {
-			return result;
-		}
-
-		@Override
-		protected boolean hasResult() {
-			return getResult() != null || getThrowable() != null;
-		}
+	@NonNull
+	public static ControllableEmptyFuture controllableEmptyFuture(@NonNull ControllableEmptyFuture.Callback callback) {
+		return controllableEmptyFuture(callback, true);
+	}
 
-		@Override
-		public boolean isCancelled() {
-			return isCancelled;
-		}
+	@NonNull
+	public static ControllableEmptyFuture controllableEmptyFuture(@NonNull ControllableEmptyFuture.Callback callback, boolean async) {
+		return createEmptyFuture(callback, async ? DEFAULT_LANE : null, AsyncPriority.DEFAULT);
+	}
 
-		@Override
-		public boolean isDone() {
-			return result != null || throwable != null;
-		}
+	@NonNull
+	public static ControllableEmptyFuture controllableEmptyFuture(
+			@NonNull AsyncLane lane,
+			@NonNull AsyncPriority priority,
+			@NonNull ControllableEmptyFuture.Callback callback
+	) {
+		return createEmptyFuture(callback, lane, priority);
+	}
 
-		@Override
-		public Throwable getThrowable() {
-			return throwable;
-		}
+	/**
+	 * @param lane Lane to run the callback on. If null, then the callback will be ran on the current thread.
+	 */
+	@NonNull
+	private static ControllableEmptyFuture createEmptyFuture(
+			@NonNull ControllableEmptyFuture.Callback callback,
+			@Nullable AsyncLane lane,
+			@NonNull AsyncPriority priority
+	) {
+		var future = new ControllableEmptyFuture();
+		future.start(lane, priority, () -> callback.start(future));
+		return future;
 	}
 
 	@NonNull
 	@Contract("_ -> new")
 	public static EmptyFuture emptyFutureFailNow(Throwable throwable) {
-		return new EmptyFuture() {
-
-			@Override
-			public boolean cancel(boolean mayInterruptIfRunning) {
-				return false;
-			}
-
-			@Override
-			public boolean isCancelled() {
-				return false;
-			}
-
-			@Override
-			public boolean isDone() {
-				return true;
-			}
-
-			@Override
-			public Throwable getThrowable() {
-				return throwable;
-			}
-
-			@Override
-			public void addCallback(Callback callback) {
-				callback.onFailure(throwable);
-			}
-
-			@Override
-			protected boolean runInNewThread() {
-				return false;
-			}
-		};
+		var future = new ControllableEmptyFuture();
+		future.fail(throwable);
+		return future;
 	}
 
 	@NonNull
 	@Contract("_ -> new")
 	public static <T> AsyncFuture<T> futureFailNow(Throwable throwable) {
-		return new AsyncFutureNow<>() {
-			@Override
-			public Throwable getThrowable() {
-				return throwable;
-			}
-
-			@Override
-			public void addCallback(AsyncFuture.Callback<T> callback) {
-				callback.onFailure(throwable);
-			}
-
-			@Override
-			public T getResult() {
-				return null;
-			}
-
-			@Override
-			protected boolean runInNewThread() {
-				return false;
-			}
-		};
+		var future = new ControllableAsyncFuture<T>();
+		future.fail(throwable);
+		return future;
 	}
 
 	@NonNull
 	@Contract("_ -> new")
 	public static <T> AsyncFuture<T> futureNow(T result) {
-		return new AsyncFutureNow<>() {
-			private Throwable throwable;
-
-			@Override
-			public Throwable getThrowable() {
-				return throwable;
-			}
-
-			@Override
-			public void addCallback(AsyncFuture.Callback<T> callback) {
-				try {
-					callback.onSuccess(result);
-				} catch(Throwable e) {
-					this.throwable = e;
-					callback.onFailure(e);
-				}
-			}
-
-			@Override
-			public T getResult() {
-				return result;
-			}
-
-			@Override
-			protected boolean runInNewThread() {
-				return false;
-			}
-		};
+		var future = new ControllableAsyncFuture<T>();
+		future.complete(result);
+		return future;
 	}
 
 	@NonNull
 	public static EmptyFuture futureNow() {
-		return new EmptyFuture() {
-			private Throwable throwable;
-
-			@Override
-			public void addCallback(Callback callback) {
-				try {
-					callback.onSuccess();
-				} catch(Throwable t) {
-					this.throwable = t;
-					callback.onFailure(t);
-				}
-			}
-
-			@Override
-			protected boolean runInNewThread() {
-				return false;
-			}
-
-			@Override
-			public boolean cancel(boolean mayInterruptIfRunning) {
-				return false;
-			}
-
-			@Override
-			public boolean isCancelled() {
-				return false;
-			}
-
-			@Override
-			public boolean isDone() {
-				return true;
-			}
-
-			@Override
-			public Throwable getThrowable() {
-				return throwable;
-			}
-		};
+		var future = new ControllableEmptyFuture();
+		future.complete();
+		return future;
 	}
 
 	public interface ThreadRunnable<T> {
@@ -510,106 +221,82 @@ public class AsyncUtils {
 	@NonNull
 	@Contract("_ -> new")
 	public static <T> AsyncFuture<T> thread(ThreadRunnable<T> callable) {
-		var future = Futures.submit(() -> {
-			try {
-				return callable.run();
-			} catch(Throwable t) {
-				throw t instanceof Exception e ? e : new ExecutionException(t);
-			}
-		}, threadsPool);
-
-		return new AsyncFuture<>() {
-			private Throwable throwable;
-			private T value;
-
-			@Override
-			public void addCallback(AsyncFuture.Callback<T> callback) {
-				Futures.addCallback(future, new FutureCallback<>() {
-					@Override
-					public void onSuccess(T result) {
-						try {
-							value = result;
-							callback.onSuccess(result);
-						} catch(Throwable e) {
-							onFailure(e);
-						}
-					}
-
-					@Override
-					public void onFailure(@NonNull Throwable t) {
-						throwable = t;
-						callback.onFailure(t);
-					}
-				}, threadsPool);
-			}
-
-			@Override
-			public T getResult() {
-				return value;
-			}
-
-			@Override
-			protected boolean runInNewThread() {
-				return true;
-			}
-
-			@Override
-			public boolean cancel(boolean mayInterruptIfRunning) {
-				return future.cancel(mayInterruptIfRunning);
-			}
-
-			@Override
-			public boolean isCancelled() {
-				return future.isCancelled();
-			}
+		return thread(DEFAULT_LANE, AsyncPriority.DEFAULT, callable);
+	}
 
-			@Override
-			public boolean isDone() {
-				return future.isDone();
-			}
+	@NonNull
+	@Contract("_, _ -> new")
+	public static <T> AsyncFuture<T> thread(@NonNull AsyncLane lane, ThreadRunnable<T> callable) {
+		return thread(lane, AsyncPriority.DEFAULT, callable);
+	}
 
-			@Override
-			public Throwable getThrowable() {
-				return throwable;
-			}
-		};
+	/**
+	 * @see #thread(AsyncLane, AsyncPriority, ThreadEmptyRunnable)
+	 */
+	@NonNull
+	@Contract("_, _, _ -> new")
+	public static <T> AsyncFuture<T> thread(@NonNull AsyncLane lane, @NonNull AsyncPriority priority, ThreadRunnable<T> callable) {
+		return createFuture(future -> future.complete(callable.run()), lane, priority);
 	}
 
 	/**
-	 * Waits until the callback returns true
+	 * Waits until the callback returns true.
+	 * Prefer {@link BaseFuture#awaitDone()} or any other real signal if you have one,
+	 * because a condition can only be polled. To not burn the cpu while polling,
+	 * the thread yields at first and then parks for a progressively longer time.
+	 * @throws CancelledException if the thread was interrupted while waiting
 	 * @author MrBoomDev
 	 */
 	public static void await(@NonNull Callbacks.Result<Boolean> callback) {
-		while(!callback.run());
+		await(callback, -1);
 	}
 
+	/**
+	 * @param maxDurationMs Max time to wait. -1 means to wait forever.
+	 * @see #await(Callbacks.Result)
+	 */
 	public static void await(@NonNull Callbacks.Result<Boolean> callback, long maxDurationMs) {
-		if(maxDurationMs == -1) {
-			await(callback);
-			return;
-		}
+		var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDurationMs);
 
-		var isCancelled = new AtomicBoolean(false);
-		var timer = runDelayed(() -> isCancelled.set(true), maxDurationMs);
+		for(int attempt = 0; !callback.run(); attempt++) {
+			if(maxDurationMs != -1 && System.nanoTime() - deadline >= 0) {
+				return;
+			}
 
-		while(!callback.run() && !isCancelled.get());
-		timer.cancel();
+			backoff(attempt);
+		}
 	}
 
 	/**
 	 * Waits until the callback returns non null
+	 * @see #await(Callbacks.Result)
 	 * @author MrBoomDev
 	 */
 	public static <T> T awaitNonNull(@NonNull Callbacks.Result<T> callback) {
 		T result;
 
-		do {
-			result = callback.run();
-		} while(result == null);
+		for(int attempt = 0; (result = callback.run()) == null; attempt++) {
+			backoff(attempt);
+		}
 
 		return result;
 	}
 
+	private static void backoff(int attempt) {
+		if(Thread.interrupted()) {
+			Thread.currentThread().interrupt();
+			throw new CancelledException("Thread was interrupted while waiting!");
+		}
+
+		if(attempt < BACKOFF_YIELDS) {
+			Thread.yield();
+			return;
+		}
+
+		var shift = Math.min(attempt - BACKOFF_YIELDS, 10);
+		LockSupport.parkNanos(Math.min(BACKOFF_MIN_PARK_NANOS << shift, BACKOFF_MAX_PARK_NANOS));
+	}
+
 	public static <T> T awaitFromUiThread(Callable<T> callable) throws Exception {
 		if(isMainThread()) {
 			return callable.call();
@@ -617,16 +304,19 @@ public class AsyncUtils {
 
 		var result = new AtomicReference<T>();
 		var throwable = new AtomicReference<Exception>();
+		var latch = new CountDownLatch(1);
 
 		runOnUiThread(() -> {
 			try {
 				result.set(callable.call());
 			} catch(Exception t) {
 				throwable.set(t);
+			} finally {
+				latch.countDown();
 			}
 		});
 
-		while(result.get() == null && throwable.get() == null);
+		latch.await();
 
 		if(throwable.get() != null) {
 			throw throwable.get();
@@ -638,20 +328,32 @@ public class AsyncUtils {
 	/**
 	 * Waits until the breaker would be called
 	 * @param <T> The result value type
+	 * @throws CancelledException if the thread was interrupted while waiting
 	 * @author MrBoomDev
 	 */
 	@Nullable
-	@SuppressWarnings("unchecked")
 	public static <T> T awaitResult(@NonNull Callbacks.Callback1<Callbacks.Callback1<T>> breaker) {
-		var resultWrapper = new AtomicReference<>();
-		var result = EMPTY_OBJECT;
+		var resultWrapper = new AtomicReference<T>();
+		var latch = new CountDownLatch(1);
 
-		breaker.run(resultWrapper::set);
+		breaker.run(result -> {
+			if(latch.getCount() == 0) return;
+			resultWrapper.set(result);
+			latch.countDown();
+		});
+
+		var lane = AsyncLane.current();
+		if(lane != null) lane.beginBlocking();
 
-		do {
-			result = resultWrapper.get();
-		} while(result == EMPTY_OBJECT);
+		try {
+			latch.await();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancelledException("Thread was interrupted while waiting!", e);
+		} finally {
+			if(lane != null) lane.endBlocking();
+		}
 
-		return (T) result;
+		return resultWrapper.get();
 	}
 }
\ No newline at end of file
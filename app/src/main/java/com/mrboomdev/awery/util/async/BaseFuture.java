@@ -1,15 +1,342 @@
 package com.mrboomdev.awery.util.async;
 
+import static com.mrboomdev.awery.app.Lifecycle.isMainThread;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mrboomdev.awery.util.exceptions.CancelledException;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The only future implementation in the app. It's state is an single word which is being set once
+ * by a compare-and-set, while callbacks and waiting threads are being pushed
+ * into a lock-free stack, which is drained by the thread that completes the future.
+ * If the future is already done, a callback is being ran right away on the caller's thread.
+ */
 public abstract class BaseFuture {
-	public abstract boolean cancel(boolean mayInterruptIfRunning);
+	private static final AtomicReferenceFieldUpdater<BaseFuture, Object> OUTCOME =
+			AtomicReferenceFieldUpdater.newUpdater(BaseFuture.class, Object.class, "outcome");
+	private static final AtomicReferenceFieldUpdater<BaseFuture, Node> STACK =
+			AtomicReferenceFieldUpdater.newUpdater(BaseFuture.class, Node.class, "stack");
+	private static final AtomicReferenceFieldUpdater<BaseFuture, Thread> RUNNER =
+			AtomicReferenceFieldUpdater.newUpdater(BaseFuture.class, Thread.class, "runner");
+
+	/**
+	 * Replaces the stack after the future is done, so that new callbacks won't be pushed anymore.
+	 */
+	private static final Node CLOSED = new Node(null);
+
+	/**
+	 * Stored instead of a null result, because null means that we're still waiting.
+	 */
+	private static final Object NULL_RESULT = new Object();
+
+	/**
+	 * Set as the runner while it is being interrupted, so that the runner won't move to another task
+	 * until the interrupt will be done.
+	 */
+	private static final Thread INTERRUPTING = new Thread("BaseFuture-interrupting");
+
+	private volatile Object outcome;
+	private volatile Node stack;
+	private volatile Thread runner;
+
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		if(!finish(new Failure(new CancelledException(), true))) {
+			return false;
+		}
+
+		var thread = runner;
 
-	public abstract boolean isCancelled();
+		if(mayInterruptIfRunning && thread != null && thread != INTERRUPTING
+				&& RUNNER.compareAndSet(this, thread, INTERRUPTING)) {
+			try {
+				thread.interrupt();
+			} finally {
+				runner = null;
+			}
+		}
 
-	public abstract boolean isDone();
+		return true;
+	}
+
+	public final boolean isCancelled() {
+		return outcome instanceof Failure failure && failure.isCancelled;
+	}
+
+	public final boolean isDone() {
+		return outcome != null;
+	}
 
 	protected boolean hasResult() {
 		return isDone();
 	}
 
-	public abstract Throwable getThrowable();
-}
\ No newline at end of file
+	@Nullable
+	public final Throwable getThrowable() {
+		return outcome instanceof Failure failure ? failure.throwable : null;
+	}
+
+	@Nullable
+	protected final Object getValue() {
+		var outcome = this.outcome;
+		return (outcome == NULL_RESULT || outcome instanceof Failure) ? null : outcome;
+	}
+
+	/**
+	 * @return false if the future was already done
+	 */
+	protected final boolean finishWithResult(@Nullable Object result) {
+		return finish(result != null ? result : NULL_RESULT);
+	}
+
+	/**
+	 * @return false if the future was already done
+	 */
+	protected final boolean finishWithThrowable(@NonNull Throwable throwable) {
+		return finish(new Failure(throwable, false));
+	}
+
+	private boolean finish(Object outcome) {
+		if(!OUTCOME.compareAndSet(this, null, outcome)) {
+			return false;
+		}
+
+		runAll(STACK.getAndSet(this, CLOSED));
+		return true;
+	}
+
+	/**
+	 * Runs the action right after this future will be done, on the thread which will complete it.
+	 * If it is already done, then the action is being ran right now.
+	 */
+	protected final void whenDone(@NonNull Runnable action) {
+		if(push(action) == null) {
+			action.run();
+		}
+	}
+
+	/**
+	 * @return Null if the future is already done, so the action wasn't added.
+	 */
+	@Nullable
+	private Node push(@NonNull Runnable action) {
+		Node node = null;
+
+		while(true) {
+			var head = stack;
+
+			if(head == CLOSED) {
+				return null;
+			}
+
+			if(node == null) {
+				node = new Node(action);
+			}
+
+			node.next = head;
+
+			if(STACK.compareAndSet(this, head, node)) {
+				return node;
+			}
+		}
+	}
+
+	/**
+	 * Unlinks the node and all other removed nodes from the stack, so that it won't grow if nobody completes the future.
+	 * Nodes are only being skipped, but never moved, so that it's safe to do while the stack is being ran.
+	 */
+	private void remove(@NonNull Node node) {
+		node.action = null;
+
+		retry:
+		while(true) {
+			for(Node previous = null, current = stack, next; current != null && current != CLOSED; current = next) {
+				next = current.next;
+
+				if(current.action != null) {
+					previous = current;
+				} else if(previous != null) {
+					previous.next = next;
+
+					// The previous one was removed at the same time, so we have to start again.
+					if(previous.action == null) continue retry;
+				} else if(!STACK.compareAndSet(this, current, next)) {
+					continue retry;
+				}
+			}
+
+			return;
+		}
+	}
+
+	private static void runAll(Node head) {
+		// The stack is reversed, so we do run callbacks from the end to run them in the order they were added.
+		// Nodes are only being read, because removed waiters may be unlinked at the same time.
+		var actions = new ArrayList<Runnable>();
+
+		for(var node = head; node != null; node = node.next) {
+			var action = node.action;
+			if(action != null) actions.add(action);
+		}
+
+		RuntimeException exception = null;
+
+		for(int i = actions.size() - 1; i >= 0; i--) {
+			try {
+				actions.get(i).run();
+			} catch(RuntimeException e) {
+				if(exception == null) exception = e;
+				else exception.addSuppressed(e);
+			}
+		}
+
+		if(exception != null) {
+			throw exception;
+		}
+	}
+
+	/**
+	 * Runs the body of this future on the lane or on the current thread if the lane is null.
+	 * Cancellation of the future will interrupt the thread running the body.
+	 */
+	final void start(@Nullable AsyncLane lane, @NonNull AsyncPriority priority, @NonNull AsyncUtils.ThreadEmptyRunnable body) {
+		if(lane == null) {
+			runBody(body);
+			return;
+		}
+
+		lane.execute(priority, () -> {
+			// Was cancelled before we've started.
+			if(isDone()) return;
+
+			var thread = Thread.currentThread();
+			runner = thread;
+
+			try {
+				runBody(body);
+			} finally {
+				if(!RUNNER.compareAndSet(this, thread, null)) {
+					// We're being interrupted right now, so wait for it, so that the next task won't be interrupted.
+					while(runner == INTERRUPTING) Thread.yield();
+					Thread.interrupted();
+				}
+			}
+		});
+	}
+
+	private void runBody(@NonNull AsyncUtils.ThreadEmptyRunnable body) {
+		try {
+			body.run();
+		} catch(Throwable t) {
+			finishWithThrowable(t);
+		}
+	}
+
+	/**
+	 * Runs the stage after this future will be done successfully or fails the next future.
+	 * Stages are being ran on the thread which has completed this future, so that long chains won't
+	 * require a new thread per stage. The only exception is the ui thread, from which we do always move away.
+	 * @param lane Lane to run the stage on. If null, then the stage will be ran inline.
+	 */
+	final void chain(@NonNull BaseFuture next, @Nullable AsyncLane lane, @NonNull AsyncUtils.ThreadEmptyRunnable stage) {
+		whenDone(() -> {
+			var throwable = getThrowable();
+
+			if(throwable != null) {
+				next.finishWithThrowable(throwable);
+				return;
+			}
+
+			if(lane == null && !isMainThread()) {
+				// The next future may have been cancelled already.
+				if(!next.isDone()) next.runBody(stage);
+				return;
+			}
+
+			next.start(lane != null ? lane : AsyncUtils.DEFAULT_LANE, AsyncPriority.DEFAULT, stage);
+		});
+	}
+
+	/**
+	 * Blocks the current thread without burning the cpu until this future will be done.
+	 * @param timeout Max time to wait. Negative value means to wait forever.
+	 * @return false if the timeout has elapsed before the future was done
+	 * @throws InterruptedException if the current thread was interrupted while waiting
+	 */
+	public final boolean awaitDone(long timeout, TimeUnit unit) throws InterruptedException {
+		if(isDone()) {
+			return true;
+		}
+
+		var forever = timeout < 0;
+		var nanos = forever ? 0 : unit.toNanos(timeout);
+		var deadline = System.nanoTime() + nanos;
+
+		var thread = Thread.currentThread();
+		var waiter = push(() -> LockSupport.unpark(thread));
+		if(waiter == null) return true;
+
+		// A lane worker is going to sleep, so let another thread take it's place.
+		var lane = AsyncLane.current();
+		if(lane != null) lane.beginBlocking();
+
+		try {
+			while(!isDone()) {
+				if(Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+
+				if(forever) {
+					LockSupport.park(this);
+					continue;
+				}
+
+				if(nanos <= 0) {
+					return false;
+				}
+
+				LockSupport.parkNanos(this, nanos);
+				nanos = deadline - System.nanoTime();
+			}
+		} finally {
+			if(lane != null) lane.endBlocking();
+
+			// We've stopped waiting before the future was done, so the waiter isn't needed anymore.
+			if(!isDone()) remove(waiter);
+		}
+
+		return true;
+	}
+
+	public final void awaitDone() throws InterruptedException {
+		awaitDone(-1, TimeUnit.MILLISECONDS);
+	}
+
+	private static class Node {
+		/**
+		 * Null if the node was removed.
+		 */
+		private volatile Runnable action;
+		private volatile Node next;
+
+		public Node(Runnable action) {
+			this.action = action;
+		}
+	}
+
+	private static class Failure {
+		private final Throwable throwable;
+		private final boolean isCancelled;
+
+		public Failure(Throwable throwable, boolean isCancelled) {
+			this.throwable = throwable;
+			this.isCancelled = isCancelled;
+		}
+	}
+}
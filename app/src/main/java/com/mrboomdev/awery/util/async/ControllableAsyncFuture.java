@@ -1,12 +1,32 @@
 package com.mrboomdev.awery.util.async;
 
-public abstract class ControllableAsyncFuture<T> extends AsyncFuture<T> {
+public class ControllableAsyncFuture<T> extends AsyncFuture<T> {
 
-	public abstract void complete(T result) throws Throwable;
+	/**
+	 * Does nothing if the future is already done.
+	 */
+	public void complete(T result) {
+		finishWithResult(result);
+	}
+
+	/**
+	 * Does nothing if the future is already done.
+	 */
+	public void fail(Throwable throwable) {
+		finishWithThrowable(throwable);
+	}
 
-	public abstract void fail(Throwable throwable);
+	/**
+	 * Runs the action if this future will be cancelled, so that you can abort the work behind it.
+	 * If it is already cancelled, then the action is being ran right now.
+	 */
+	public void onCancelled(Runnable action) {
+		whenDone(() -> {
+			if(isCancelled()) action.run();
+		});
+	}
 
 	public interface Callback<T> {
 		void start(ControllableAsyncFuture<T> future) throws Throwable;
 	}
-}
\ No newline at end of file
+}
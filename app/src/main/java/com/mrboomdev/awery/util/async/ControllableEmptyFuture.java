@@ -1,11 +1,22 @@
 package com.mrboomdev.awery.util.async;
 
-public abstract class ControllableEmptyFuture extends EmptyFuture {
-	public abstract void complete() throws Throwable;
+public class ControllableEmptyFuture extends EmptyFuture {
 
-	public abstract void fail(Throwable throwable);
+	/**
+	 * Does nothing if the future is already done.
+	 */
+	public void complete() {
+		finishWithResult(null);
+	}
+
+	/**
+	 * Does nothing if the future is already done.
+	 */
+	public void fail(Throwable throwable) {
+		finishWithThrowable(throwable);
+	}
 
 	public interface Callback {
 		void start(ControllableEmptyFuture future) throws Throwable;
 	}
-}
\ No newline at end of file
+}
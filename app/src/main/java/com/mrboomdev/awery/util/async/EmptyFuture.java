@@ -2,10 +2,29 @@ package com.mrboomdev.awery.util.async;
 
 import static com.mrboomdev.awery.util.NiceUtils.asRuntimeException;
 
+import com.mrboomdev.awery.util.exceptions.CancelledException;
+
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public abstract class EmptyFuture extends BaseFuture {
-	public abstract void addCallback(Callback callback);
+	public void addCallback(Callback callback) {
+		whenDone(() -> {
+			var throwable = getThrowable();
+
+			if(throwable != null) {
+				callback.onFailure(throwable);
+				return;
+			}
+
+			try {
+				callback.onSuccess();
+			} catch(Throwable e) {
+				callback.onFailure(e);
+			}
+		});
+	}
 
 	public void addCallback(Runnable callback) {
 		addCallback(new Callback() {
@@ -16,136 +35,64 @@ public abstract class EmptyFuture extends BaseFuture {
 		});
 	}
 
-	protected abstract boolean runInNewThread();
-
 	public EmptyFuture thenEmpty(Callable1 runnable) {
-		return AsyncUtils.controllableEmptyFuture(future -> addCallback(new Callback() {
-			@Override
-			public void onSuccess() {
-				AsyncUtils.thread(() -> {
-					try {
-						runnable.run();
-						future.complete();
-					} catch(Throwable e) {
-						future.fail(e);
-					}
-				});
-			}
+		var next = new ControllableEmptyFuture();
 
-			@Override
-			public void onFailure(Throwable t) {
-				future.fail(t);
-			}
-		}), !runInNewThread());
+		chain(next, null, () -> {
+			runnable.run();
+			next.complete();
+		});
+
+		return next;
 	}
 
 	public <E> AsyncFuture<E> then(Callable<E> runnable) {
-		return AsyncUtils.controllableFuture(future -> addCallback(new Callback() {
-			@Override
-			public void onSuccess() {
-				(runInNewThread() ? AsyncUtils.thread(() -> {
-					try {
-						return runnable.call();
-					} catch(Throwable e) {
-						throw asRuntimeException(e);
-					}
-				}) : new AsyncFutureNow<E>() {
-					private E nextResult;
-					private Throwable t;
-
-					{
-						try {
-							nextResult = runnable.call();
-						} catch(Throwable e) {
-							t = e;
-						}
-					}
-
-					@Override
-					public Throwable getThrowable() {
-						return t;
-					}
-
-					@Override
-					public E getResult() {
-						return nextResult;
-					}
-
-					@Override
-					protected boolean runInNewThread() {
-						return true;
-					}
-				}).addCallback(new AsyncFuture.Callback<>() {
-					@Override
-					public void onSuccess(E result) throws Throwable {
-						future.complete(result);
-					}
-
-					@Override
-					public void onFailure(Throwable t) {
-						future.fail(t);
-					}
-				});
-			}
-
-			@Override
-			public void onFailure(Throwable t) {
-				future.fail(t);
-			}
-		}), !runInNewThread());
+		var next = new ControllableAsyncFuture<E>();
+		chain(next, null, () -> next.complete(runnable.call()));
+		return next;
 	}
 
 	public <E> AsyncFuture<E> thenControllable(ControllableAsyncFuture.Callback<E> callback) {
-		return AsyncUtils.controllableFuture(future -> addCallback(new Callback() {
-			@Override
-			public void onSuccess() {
-				AsyncUtils.controllableFuture(callback).addCallback(new AsyncFuture.Callback<>() {
-					@Override
-					public void onSuccess(E result) throws Throwable {
-						future.complete(result);
-					}
-
-					@Override
-					public void onFailure(Throwable t) {
-						future.fail(t);
-					}
-				});
-			}
-
-			@Override
-			public void onFailure(Throwable t) {
-				future.fail(t);
-			}
-		}));
+		var next = new ControllableAsyncFuture<E>();
+		chain(next, null, () -> callback.start(next));
+		return next;
 	}
 
 	public EmptyFuture thenEmptyControllable(ControllableEmptyFuture.Callback callback) {
-		return AsyncUtils.controllableEmptyFuture(future -> addCallback(new Callback() {
-			@Override
-			public void onSuccess() {
-				AsyncUtils.controllableEmptyFuture(callback).addCallback(new Callback() {
-					@Override
-					public void onSuccess() throws Throwable {
-						future.complete();
-					}
-
-					@Override
-					public void onFailure(Throwable t) {
-						future.fail(t);
-					}
-				});
-			}
-
-			@Override
-			public void onFailure(Throwable t) {
-				future.fail(t);
-			}
-		}));
+		var next = new ControllableEmptyFuture();
+		chain(next, null, () -> callback.start(next));
+		return next;
 	}
 
 	public void await() {
-		AsyncUtils.await(this::isDone);
+		try {
+			awaitDone();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancelledException("Thread was interrupted while waiting!", e);
+		}
+
+		throwIfFailed();
+	}
+
+	/**
+	 * Same as {@link #await()}, but gives up after the timeout.
+	 * @throws TimeoutException if the future wasn't done in time
+	 */
+	public void await(long timeout, TimeUnit unit) throws TimeoutException {
+		try {
+			if(!awaitDone(timeout, unit)) {
+				throw new TimeoutException("Future wasn't done in " + timeout + " " + unit);
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancelledException("Thread was interrupted while waiting!", e);
+		}
+
+		throwIfFailed();
+	}
 
+	private void throwIfFailed() {
 		var t = getThrowable();
 
 		if(t != null) {
@@ -0,0 +1,230 @@
+package com.mrboomdev.awery.util.async;
+
+import static com.mrboomdev.awery.util.async.AsyncUtils.runDelayed;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mrboomdev.awery.util.exceptions.TimeoutException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimerTask;
+
+/**
+ * Runs the same work in multiple ways and takes the first one which has succeeded.
+ * Attempts are being started in their order. The next one is being started if the previous has failed,
+ * or if it is too slow, so a single dead attempt won't block everything else.
+ * After the winner is found, all other attempts are being cancelled.
+ */
+public class HedgedRace<T> {
+	private final ControllableAsyncFuture<T> future = new ControllableAsyncFuture<>();
+	private final List<Attempt<T>> attempts;
+	private final List<Running> running = new ArrayList<>();
+	private final Listener<T> listener;
+	private final int maxInFlight;
+	private final long hedgeDelayMs, deadlineMs;
+	private Throwable throwable;
+	private int throwableIndex = Integer.MAX_VALUE;
+	private int nextIndex, inFlight;
+
+	private HedgedRace(List<Attempt<T>> attempts, int maxInFlight, long hedgeDelayMs, long deadlineMs, Listener<T> listener) {
+		this.attempts = attempts;
+		this.maxInFlight = Math.max(1, maxInFlight);
+		this.hedgeDelayMs = hedgeDelayMs;
+		this.deadlineMs = deadlineMs;
+		this.listener = listener;
+	}
+
+	/**
+	 * @param maxInFlight How many attempts may run at once.
+	 * @param hedgeDelayMs After this delay without any result the next attempt will be started.
+	 * @param deadlineMs Attempt which didn't finish in time is being cancelled and counted as failed.
+	 * @return Result of the first succeeded attempt. If all of them have failed,
+	 * then the error of the first attempt in the order is being thrown.
+	 */
+	@NonNull
+	public static <T> AsyncFuture<T> race(
+			@NonNull List<Attempt<T>> attempts,
+			int maxInFlight,
+			long hedgeDelayMs,
+			long deadlineMs,
+			@Nullable Listener<T> listener
+	) {
+		var race = new HedgedRace<>(attempts, maxInFlight, hedgeDelayMs, deadlineMs, listener);
+
+		if(attempts.isEmpty()) {
+			race.future.fail(new IllegalArgumentException("No attempts to run!"));
+			return race.future;
+		}
+
+		race.future.onCancelled(race::cancelAll);
+		race.launchNext();
+		return race.future;
+	}
+
+	/**
+	 * Attempts and the listener are being called outside of the lock,
+	 * so that a slow one won't block timers and callbacks of other attempts.
+	 */
+	private void launchNext() {
+		Running item;
+
+		synchronized(this) {
+			if(future.isDone() || nextIndex >= attempts.size()) return;
+
+			item = new Running(nextIndex++);
+			running.add(item);
+			inFlight++;
+		}
+
+		AsyncFuture<T> call;
+
+		try {
+			call = attempts.get(item.index).start();
+		} catch(Throwable t) {
+			onDone(item, null, t);
+			return;
+		}
+
+		boolean isLate;
+
+		synchronized(this) {
+			item.future = call;
+
+			// The race was over while the attempt was starting.
+			isLate = future.isDone();
+
+			if(isLate) {
+				item.isDone = true;
+				inFlight--;
+			} else {
+				item.deadline = runDelayed(() -> onDone(item, null,
+						new TimeoutException("Attempt has timed out after " + deadlineMs + "ms")), deadlineMs);
+
+				item.hedge = runDelayed(this::onHedge, hedgeDelayMs);
+			}
+		}
+
+		if(isLate) {
+			call.cancel(true);
+			return;
+		}
+
+		call.addCallback(new AsyncFuture.Callback<>() {
+			@Override
+			public void onSuccess(T result) {
+				onDone(item, result, null);
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				onDone(item, null, t);
+			}
+		});
+	}
+
+	private void onHedge() {
+		boolean doLaunch;
+
+		synchronized(this) {
+			doLaunch = inFlight < maxInFlight;
+		}
+
+		if(doLaunch) launchNext();
+	}
+
+	private void onDone(@NonNull Running item, T result, Throwable t) {
+		synchronized(this) {
+			if(item.isDone) return;
+			item.isDone = true;
+			inFlight--;
+
+			if(item.deadline != null) item.deadline.cancel();
+			if(item.hedge != null) item.hedge.cancel();
+
+			// The race is over, so this attempt was just cancelled by us.
+			if(future.isDone()) return;
+		}
+
+		if(listener != null) {
+			listener.onAttemptDone(item.index, result, t, SystemClock.elapsedRealtime() - item.startTime);
+		}
+
+		if(t == null) {
+			future.complete(result);
+			cancelAll();
+			return;
+		}
+
+		if(t instanceof TimeoutException && item.future != null) {
+			item.future.cancel(true);
+		}
+
+		boolean doLaunch, doFail;
+		Throwable firstThrowable;
+
+		synchronized(this) {
+			if(item.index < throwableIndex) {
+				throwable = t;
+				throwableIndex = item.index;
+			}
+
+			doLaunch = nextIndex < attempts.size();
+			doFail = !doLaunch && inFlight == 0;
+			firstThrowable = throwable;
+		}
+
+		if(doLaunch) {
+			launchNext();
+		} else if(doFail) {
+			future.fail(firstThrowable);
+		}
+	}
+
+	private void cancelAll() {
+		List<Running> items;
+
+		synchronized(this) {
+			items = new ArrayList<>(running);
+
+			for(var item : items) {
+				if(item.deadline != null) item.deadline.cancel();
+				if(item.hedge != null) item.hedge.cancel();
+			}
+		}
+
+		for(var item : items) {
+			if(item.future != null && !item.future.isDone()) {
+				item.future.cancel(true);
+			}
+		}
+	}
+
+	private class Running {
+		private final long startTime = SystemClock.elapsedRealtime();
+		private final int index;
+		private volatile AsyncFuture<T> future;
+		private TimerTask deadline, hedge;
+		private boolean isDone;
+
+		private Running(int index) {
+			this.index = index;
+		}
+	}
+
+	public interface Attempt<T> {
+		AsyncFuture<T> start() throws Throwable;
+	}
+
+	public interface Listener<T> {
+		/**
+		 * Called for every attempt that has finished before the race was over.
+		 * @param result Null if the attempt has failed
+		 * @param throwable Null if the attempt has succeeded
+		 */
+		void onAttemptDone(int index, @Nullable T result, @Nullable Throwable throwable, long latencyMs);
+	}
+}
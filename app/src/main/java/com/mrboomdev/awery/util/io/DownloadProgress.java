@@ -0,0 +1,39 @@
+package com.mrboomdev.awery.util.io;
+
+import android.os.SystemClock;
+
+import com.mrboomdev.awery.ext.data.Progress;
+
+/**
+ * Progress of a download in bytes. Max is 0 if the size of the file is unknown.
+ */
+public class DownloadProgress extends Progress {
+	private volatile long startTime, startProgress;
+
+	/**
+	 * Called by the downloader once it knows from where it does start.
+	 * Bytes which were downloaded before the resume don't count into the speed.
+	 */
+	synchronized void start(long alreadyDownloaded) {
+		setProgress(alreadyDownloaded);
+		startProgress = alreadyDownloaded;
+		startTime = SystemClock.elapsedRealtime();
+	}
+
+	/**
+	 * Safe to be called from multiple threads at once.
+	 */
+	synchronized void add(long bytes) {
+		setProgress(getProgress() + bytes);
+	}
+
+	/**
+	 * @return Average speed since the download was started or resumed.
+	 */
+	public long getBytesPerSecond() {
+		var elapsed = SystemClock.elapsedRealtime() - startTime;
+		if(startTime == 0 || elapsed <= 0) return 0;
+
+		return (getProgress() - startProgress) * 1000 / elapsed;
+	}
+}
@@ -219,6 +219,38 @@ public class FileUtil {
 		}
 	}
 
+	/**
+	 * Reads the whole file at once, without splitting it into lines.
+	 */
+	@NonNull
+	public static byte[] readBytes(@NonNull File file) throws IOException {
+		try(var is = new FileInputStream(file)) {
+			var length = file.length();
+
+			if(length > Integer.MAX_VALUE) {
+				throw new IOException("File is too big! " + file);
+			}
+
+			var bytes = new byte[(int) length];
+			int offset = 0, read;
+
+			while(offset < bytes.length && (read = is.read(bytes, offset, bytes.length - offset)) != -1) {
+				offset += read;
+			}
+
+			if(offset < bytes.length) {
+				throw new IOException("File was truncated while reading! " + file);
+			}
+
+			return bytes;
+		}
+	}
+
+	@NonNull
+	public static String readFile(@NonNull File file) throws IOException {
+		return new String(readBytes(file), StandardCharsets.UTF_8);
+	}
+
 	public static void writeStream(OutputStream os, byte[] bytes) throws IOException {
 		try(var output = new BufferedOutputStream(os)) {
 			output.write(bytes);
@@ -0,0 +1,223 @@
+package com.mrboomdev.awery.util.io;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+
+/**
+ * A token bucket which is shared by everyone who does send requests to the same host.
+ * Instead of storing tokens, it stores the time at which the bucket will be full again,
+ * so that a permit is taken by a single compare-and-set without any locks.
+ * Nobody is being blocked while waiting for a permit. Instead the caller gets a delay,
+ * after which it may proceed, so it's up to the caller to wait asynchronously.
+ * Limits are being applied only to calls of clients which have registered them.
+ */
+public class HostRateLimiter {
+	private static final Map<String, HostRateLimiter> limiters = new ConcurrentHashMap<>();
+
+	/**
+	 * Calls which did already wait for a permit before being enqueued,
+	 * so that interceptors won't take a second permit for them.
+	 */
+	private static final Map<Call, HostRateLimiter> permittedCalls =
+			Collections.synchronizedMap(new WeakHashMap<>());
+
+	private final AtomicLong fullAt = new AtomicLong();
+	private final AtomicLong acquired = new AtomicLong(), throttled = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong(), maxWaitNanos = new AtomicLong();
+	private final String host;
+	private volatile long intervalNanos, burstNanos;
+
+	private HostRateLimiter(String host, int permits, long periodMs) {
+		this.host = host;
+		this.intervalNanos = getIntervalNanos(permits, periodMs);
+		this.burstNanos = getBurstNanos(permits, periodMs);
+	}
+
+	/**
+	 * If there is already a limiter for this host, then it is being returned.
+	 * If the new limits are stricter, then they are being applied to it, so that no one will exceed them.
+	 * @param permits Count of requests allowed within the period. All of them may be sent at once.
+	 */
+	@NonNull
+	public static HostRateLimiter get(@NonNull String host, int permits, long periodMs) {
+		return limiters.compute(host, (key, limiter) -> {
+			if(limiter == null) {
+				return new HostRateLimiter(key, permits, periodMs);
+			}
+
+			limiter.intervalNanos = Math.max(limiter.intervalNanos, getIntervalNanos(permits, periodMs));
+			limiter.burstNanos = Math.min(limiter.burstNanos, getBurstNanos(permits, periodMs));
+			return limiter;
+		});
+	}
+
+	private static long getIntervalNanos(int permits, long periodMs) {
+		return Math.max(1, TimeUnit.MILLISECONDS.toNanos(periodMs) / Math.max(1, permits));
+	}
+
+	private static long getBurstNanos(int permits, long periodMs) {
+		return getIntervalNanos(permits, periodMs) * (Math.max(1, permits) - 1);
+	}
+
+	@Nullable
+	public static HostRateLimiter find(@NonNull String host) {
+		return limiters.get(host);
+	}
+
+	@NonNull
+	public static Map<String, HostRateLimiter> getAll() {
+		return Collections.unmodifiableMap(limiters);
+	}
+
+	/**
+	 * Takes a permit for the call before it is being enqueued.
+	 * The returned delay must be waited before the call will be enqueued.
+	 * @param limiter Limiter which was registered by the client of this call
+	 * @return Delay in milliseconds
+	 */
+	public static long reserve(@NonNull Call call, @NonNull HostRateLimiter limiter) {
+		permittedCalls.put(call, limiter);
+		return TimeUnit.NANOSECONDS.toMillis(limiter.reserve());
+	}
+
+	/**
+	 * Returns the permit taken by {@link #reserve(Call, HostRateLimiter)}, if the call was cancelled before it was sent,
+	 * so that cancelled calls won't slow down other ones.
+	 */
+	public static void cancelReservation(@NonNull Call call) {
+		var limiter = permittedCalls.remove(call);
+		if(limiter != null) limiter.refund();
+	}
+
+	/**
+	 * @return true if the call has already got a permit by {@link #reserve(Call, HostRateLimiter)}
+	 */
+	public static boolean consumePermit(@NonNull Call call) {
+		return permittedCalls.remove(call) != null;
+	}
+
+	/**
+	 * Takes a permit right now, even if it's time hasn't came yet.
+	 * @return Delay in nanoseconds after which the permit may be used
+	 */
+	public long reserve() {
+		while(true) {
+			var now = SystemClock.elapsedRealtimeNanos();
+			var fullAt = this.fullAt.get();
+			var nextFullAt = Math.max(fullAt, now) + intervalNanos;
+
+			if(!this.fullAt.compareAndSet(fullAt, nextFullAt)) {
+				continue;
+			}
+
+			var delay = Math.max(0, fullAt - burstNanos - now);
+			acquired.incrementAndGet();
+
+			if(delay > 0) {
+				throttled.incrementAndGet();
+				totalWaitNanos.addAndGet(delay);
+
+				long max;
+				while((max = maxWaitNanos.get()) < delay && !maxWaitNanos.compareAndSet(max, delay));
+			}
+
+			return delay;
+		}
+	}
+
+	/**
+	 * Takes a permit and blocks the current thread until it could be used.
+	 * Use it only if there is no way to wait asynchronously, like in OkHttp interceptors.
+	 */
+	public void acquireBlocking(@NonNull Call call) throws IOException {
+		var delay = reserve();
+		var until = SystemClock.elapsedRealtimeNanos() + delay;
+
+		while(delay > 0) {
+			if(call.isCanceled()) {
+				refund();
+				throw new IOException("Canceled");
+			}
+
+			try {
+				// Sleep by small parts, so that a cancellation will be noticed.
+				TimeUnit.NANOSECONDS.sleep(Math.min(delay, TimeUnit.MILLISECONDS.toNanos(100)));
+			} catch(InterruptedException e) {
+				refund();
+				throw new InterruptedIOException("Interrupted while waiting for a permit!");
+			}
+
+			delay = until - SystemClock.elapsedRealtimeNanos();
+		}
+	}
+
+	/**
+	 * Returns a permit which wasn't used, for example because the response was taken from the cache.
+	 */
+	public void refund() {
+		while(true) {
+			var now = SystemClock.elapsedRealtimeNanos();
+			var fullAt = this.fullAt.get();
+
+			if(fullAt <= now || this.fullAt.compareAndSet(fullAt, Math.max(now, fullAt - intervalNanos))) {
+				return;
+			}
+		}
+	}
+
+	@NonNull
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * @return Approximate count of requests which have got a permit, but are still waiting for it's time.
+	 */
+	public long getQueueDepth() {
+		var waitNanos = fullAt.get() - burstNanos - SystemClock.elapsedRealtimeNanos();
+		return waitNanos <= 0 ? 0 : (waitNanos + intervalNanos - 1) / intervalNanos;
+	}
+
+	public long getAcquiredCount() {
+		return acquired.get();
+	}
+
+	public long getThrottledCount() {
+		return throttled.get();
+	}
+
+	/**
+	 * @return Average wait of a throttled request.
+	 */
+	public long getAverageWait(@NonNull TimeUnit unit) {
+		var count = throttled.get();
+		return count == 0 ? 0 : unit.convert(totalWaitNanos.get() / count, TimeUnit.NANOSECONDS);
+	}
+
+	public long getMaxWait(@NonNull TimeUnit unit) {
+		return unit.convert(maxWaitNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	@NonNull
+	@Override
+	public String toString() {
+		return host + "{queue=" + getQueueDepth()
+				+ ", acquired=" + getAcquiredCount()
+				+ ", throttled=" + getThrottledCount()
+				+ ", avgWaitMs=" + getAverageWait(TimeUnit.MILLISECONDS)
+				+ ", maxWaitMs=" + getMaxWait(TimeUnit.MILLISECONDS) + "}";
+	}
+}
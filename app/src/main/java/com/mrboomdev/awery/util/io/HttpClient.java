@@ -1,7 +1,7 @@
 package com.mrboomdev.awery.util.io;
 
 import static com.mrboomdev.awery.app.Lifecycle.getAnyContext;
-import static java.util.Objects.requireNonNull;
+import static com.mrboomdev.awery.util.async.AsyncUtils.controllableFuture;
 import static com.mrboomdev.awery.util.async.AsyncUtils.thread;
 
 import androidx.annotation.NonNull;
@@ -9,35 +9,52 @@ import androidx.annotation.NonNull;
 import com.mrboomdev.awery.app.data.Constants;
 import com.mrboomdev.awery.generated.AwerySettings;
 import com.mrboomdev.awery.util.async.AsyncFuture;
+import com.mrboomdev.awery.util.async.AsyncLane;
+import com.mrboomdev.awery.util.async.AsyncPriority;
 import com.mrboomdev.awery.util.async.AsyncUtils;
+import com.mrboomdev.awery.util.async.ControllableAsyncFuture;
 
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.nio.channels.Channels;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.Cache;
 import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
+import okhttp3.Response;
 import okhttp3.logging.HttpLoggingInterceptor;
 
 public class HttpClient {
+	/**
+	 * The only disk cache of http responses in the app. Images are being cached by the Glide separately.
+	 */
+	private static final long CACHE_SIZE = /* 20mb */ 20 * 1024 * 1024;
 	private static OkHttpClient client;
 
-	public static OkHttpClient getClient() {
+	/**
+	 * The root client which owns the cache, the connection pool and the dispatcher.
+	 * If you need different settings, then use {@link OkHttpClient#newBuilder()} of this client,
+	 * so that connections, TLS sessions and the cache would be shared.
+	 * Never create an new {@link OkHttpClient.Builder} manually!
+	 */
+	public static synchronized OkHttpClient getClient() {
 		if(client != null) return client;
 		var builder = new OkHttpClient.Builder();
 
+		builder.dispatcher(new Dispatcher(new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+				60, TimeUnit.SECONDS, new SynchronousQueue<>(), DispatcherThread::new)));
+
 		var cacheDir = new File(getAnyContext().getCacheDir(), Constants.DIRECTORY_NET_CACHE);
-		var cache = new Cache(cacheDir, /* 10mb */ 10 * 1024 * 1024);
-		builder.cache(cache);
+		builder.cache(new Cache(cacheDir, CACHE_SIZE));
 
 		if(AwerySettings.LOG_NETWORK.getValue()) {
 			var httpLoggingInterceptor = new HttpLoggingInterceptor();
@@ -49,74 +66,80 @@ public class HttpClient {
 		return client;
 	}
 
+	/**
+	 * @return True if the current thread is running an enqueued call of the OkHttp's dispatcher.
+	 * Such thread should never wait for other calls, because it does hold a slot of the host.
+	 */
+	public static boolean isDispatcherThread() {
+		return Thread.currentThread() instanceof DispatcherThread;
+	}
+
 	@NotNull
 	public static File downloadSync(@NotNull HttpRequest request, @NotNull File targetFile) throws IOException {
-		request.checkFields();
-		var url = new URL(request.getUrl());
-
-		requireNonNull(targetFile.getParentFile()).mkdirs();
-		targetFile.delete();
-		targetFile.createNewFile();
-
-		var connection = url.openConnection();
-
-		if(request.getHeaders() != null) {
-			for(var header : request.getHeaders().entrySet()) {
-				connection.setRequestProperty(header.getKey(), header.getValue());
-			}
-		}
-
-		var httpChannel = Channels.newChannel(connection.getInputStream());
+		return new HttpDownloader(request, targetFile, new DownloadProgress()).download();
+	}
 
-		try(var fos = new FileOutputStream(targetFile)) {
-			fos.getChannel().transferFrom(httpChannel, 0, Long.MAX_VALUE);
-		}
+	@NonNull
+	public static AsyncFuture<File> download(@NonNull HttpRequest request, @NonNull File targetFile) {
+		return download(request, targetFile, new DownloadProgress());
+	}
 
-		return targetFile;
+	/**
+	 * Downloads the file by multiple parts at once if the server supports it.
+	 * If the download was interrupted, then the next call with the same url and file will continue it.
+	 * Cancelling the future will stop the download, but downloaded parts are being kept.
+	 */
+	@NonNull
+	public static AsyncFuture<File> download(
+			@NonNull HttpRequest request,
+			@NonNull File targetFile,
+			@NonNull DownloadProgress progress
+	) {
+		var downloader = new HttpDownloader(request, targetFile, progress);
+
+		return controllableFuture(AsyncLane.IO, AsyncPriority.DEFAULT, future -> {
+			future.onCancelled(downloader::cancel);
+			future.complete(downloader.download());
+		});
 	}
 
 	@NonNull
-	public static AsyncFuture<File> download(@NonNull HttpRequest request, @NonNull File targetFile) {
-		URL url;
+	public static HttpResponse fetchSync(@NonNull HttpRequest request) throws IOException {
+		request.checkFields();
+		return executeCall(createRequest(request), request.getCacheMode(), request.isStreaming());
+	}
 
+	/**
+	 * Enqueues the request into the OkHttp's dispatcher, so that no thread is being blocked while waiting
+	 * and the count of simultaneous requests per host is limited.
+	 * The future is being completed on the {@link AsyncLane#IO}, so that callbacks won't hold the OkHttp's thread.
+	 * Cancelling the future will cancel the call.
+	 * Identical GET requests which are running at the same time are being merged into a single call,
+	 * and may be answered from the memory if {@link HttpRequest#setMemoryCache(int, int)} was used.
+	 */
+	@NonNull
+	public static AsyncFuture<HttpResponse> fetch(@NonNull HttpRequest request) {
 		try {
 			request.checkFields();
-			url = new URL(request.getUrl());
 		} catch(Throwable t) {
 			return AsyncUtils.futureFailNow(t);
 		}
 
-		return AsyncUtils.controllableFuture(future -> {
-			try {
-				requireNonNull(targetFile.getParentFile()).mkdirs();
-				targetFile.delete();
-				targetFile.createNewFile();
-
-				var connection = url.openConnection();
-
-				if(request.getHeaders() != null) {
-					for(var header : request.getHeaders().entrySet()) {
-						connection.setRequestProperty(header.getKey(), header.getValue());
-					}
-				}
-
-				var httpChannel = Channels.newChannel(connection.getInputStream());
-
-				try(var fos = new FileOutputStream(targetFile)) {
-					fos.getChannel().transferFrom(httpChannel, 0, Long.MAX_VALUE);
-				}
+		if(HttpMemoryCache.canShare(request)) {
+			return HttpMemoryCache.fetch(request, HttpClient::enqueue);
+		}
 
-				future.complete(targetFile);
-			} catch(IOException e) {
-				future.fail(e);
-			}
-		});
+		return enqueue(request);
 	}
 
 	@NonNull
-	public static HttpResponse fetchSync(@NonNull HttpRequest request) throws IOException {
-		request.checkFields();
+	private static AsyncFuture<HttpResponse> enqueue(@NonNull HttpRequest request) {
+		return controllableFuture(future -> enqueueCall(future,
+				createRequest(request), request.getCacheMode(), request.isStreaming()), false);
+	}
 
+	@NonNull
+	private static Request.Builder createRequest(@NonNull HttpRequest request) {
 		var okRequest = new okhttp3.Request.Builder();
 		okRequest.url(request.getUrl());
 
@@ -142,23 +165,92 @@ public class HttpClient {
 					.build());
 		}
 
-		return executeCall(okRequest, request.getCacheMode());
+		return okRequest;
+	}
+
+	/**
+	 * If we did request only a cached response and there is none, then OkHttp will return 504.
+	 * In such case we do request the network.
+	 */
+	private static boolean isCacheMiss(@NonNull Response response, HttpCacheMode mode) {
+		return mode != null && mode.doCache() && response.code() == 504;
 	}
 
 	@NonNull
-	public static AsyncFuture<HttpResponse> fetch(@NonNull HttpRequest request) {
-		return thread(() -> fetchSync(request));
+	private static Request.Builder noCache(@NonNull Request.Builder okRequest) {
+		return okRequest.cacheControl(new CacheControl.Builder().noCache().build());
 	}
 
 	@NonNull
-	private static HttpResponse executeCall(Request.Builder okRequest, HttpCacheMode mode) throws IOException {
-		try(var response = getClient().newCall(okRequest.build()).execute()) {
-			if(mode != null && mode.doCache() && response.code() == 504) {
-				var cacheControl = new CacheControl.Builder().noCache().build();
-				return executeCall(okRequest.cacheControl(cacheControl), HttpCacheMode.NETWORK_ONLY);
+	private static HttpResponse executeCall(
+			Request.Builder okRequest,
+			HttpCacheMode mode,
+			boolean stream
+	) throws IOException {
+		var response = getClient().newCall(okRequest.build()).execute();
+
+		if(isCacheMiss(response, mode)) {
+			response.close();
+			return executeCall(noCache(okRequest), HttpCacheMode.NETWORK_ONLY, stream);
+		}
+
+		// In the streaming mode the response is being closed by the HttpResponse
+		return new HttpResponse(response, stream);
+	}
+
+	private static void enqueueCall(
+			ControllableAsyncFuture<HttpResponse> future,
+			Request.Builder okRequest,
+			HttpCacheMode mode,
+			boolean stream
+	) {
+		var call = getClient().newCall(okRequest.build());
+		future.onCancelled(call::cancel);
+
+		var callback = new Callback() {
+			@Override
+			public void onFailure(@NonNull Call call, @NonNull IOException e) {
+				thread(AsyncLane.IO, () -> {
+					future.fail(e);
+				});
+			}
+
+			@Override
+			public void onResponse(@NonNull Call call, @NonNull Response response) {
+				if(future.isDone()) {
+					response.close();
+					return;
+				}
+
+				if(isCacheMiss(response, mode)) {
+					response.close();
+					enqueueCall(future, noCache(okRequest), HttpCacheMode.NETWORK_ONLY, stream);
+					return;
+				}
+
+				var result = new HttpResponse(response, stream);
+
+				// Callbacks are being invoked right on the completing thread. If they would run here,
+				// then the host's slot would be held and a nested fetch could wait for it forever.
+				thread(AsyncLane.IO, () -> {
+					future.complete(result);
+
+					// Nobody will ever close it if the future was cancelled while we were reading.
+					if(future.isCancelled()) {
+						result.close();
+					}
+				});
 			}
+		};
+
+		// Limits of extensions aren't being applied to the app's own client.
+		call.enqueue(callback);
+	}
+
+	private static class DispatcherThread extends Thread {
 
-			return new HttpResponse(response);
+		public DispatcherThread(Runnable runnable) {
+			super(runnable, "OkHttp Dispatcher");
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,399 @@
+package com.mrboomdev.awery.util.io;
+
+import static com.mrboomdev.awery.util.async.AsyncUtils.thread;
+import static java.util.Objects.requireNonNull;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mrboomdev.awery.util.Parser;
+import com.mrboomdev.awery.util.async.AsyncLane;
+import com.mrboomdev.awery.util.async.EmptyFuture;
+import com.mrboomdev.awery.util.exceptions.CancelledException;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Downloads a file by multiple byte ranges at once, if the server does support it.
+ * Ranges are being written right into their places in the file, so no merging is needed.
+ * Progress of each range is being saved next to the file, so that if the download was interrupted,
+ * even by the death of the process, then the next download of the same url into the same file will continue it.
+ */
+public class HttpDownloader {
+	private static final String TAG = "HttpDownloader";
+	private static final Parser.Adapter<State> ADAPTER = Parser.getAdapter(State.class);
+	private static final long MIN_SEGMENT_SIZE = /* 1mb */ 1024 * 1024;
+	private static final int MAX_SEGMENTS = 4;
+	private static final int MAX_ATTEMPTS = 3;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final long SAVE_INTERVAL_MS = 1000;
+	private final HttpRequest request;
+	private final File targetFile, partFile, stateFile;
+	private final DownloadProgress progress;
+	private volatile boolean isCancelled;
+	/**
+	 * Stops other segments after one of them has failed. Unlike the {@link #isCancelled},
+	 * it's being reset before each attempt to download the file.
+	 */
+	private volatile boolean isAborted;
+	private State state;
+	private long lastSaveTime;
+
+	public HttpDownloader(@NonNull HttpRequest request, @NonNull File targetFile, @NonNull DownloadProgress progress) {
+		this.request = request;
+		this.targetFile = targetFile;
+		this.progress = progress;
+		this.partFile = new File(targetFile.getPath() + ".part");
+		this.stateFile = new File(targetFile.getPath() + ".part.json");
+	}
+
+	/**
+	 * Stops the download. Everything that was downloaded will be kept for the next time.
+	 */
+	public void cancel() {
+		isCancelled = true;
+	}
+
+	@NonNull
+	public File download() throws IOException {
+		request.checkFields();
+		state = readState();
+
+		if(state == null) {
+			FileUtil.deleteFile(partFile);
+			state = probe();
+			saveState(true);
+		}
+
+		try {
+			downloadPart();
+		} catch(RestartException e) {
+			// The file was changed since we did start or the server doesn't really support ranges,
+			// so parts that we have are useless. Start from zero without any ranges.
+			if(isCancelled) {
+				throw new CancelledException("Download was cancelled!");
+			}
+
+			Log.w(TAG, "Download is being restarted from the beginning.", e);
+			FileUtil.deleteFile(partFile);
+			state = createState(-1, false, null);
+			saveState(true);
+			downloadPart();
+		}
+
+		FileUtil.deleteFile(stateFile);
+		FileUtil.deleteFile(targetFile);
+
+		if(!partFile.renameTo(targetFile)) {
+			throw new IOException("Failed to move the downloaded file to " + targetFile);
+		}
+
+		progress.setCompleted();
+		return targetFile;
+	}
+
+	private void downloadPart() throws IOException {
+		isAborted = false;
+		progress.setMax(Math.max(0, state.length));
+		progress.start(state.getDownloaded());
+		FileUtil.createFile(partFile);
+
+		try(var file = new RandomAccessFile(partFile, "rw");
+			var channel = file.getChannel()
+		) {
+			if(state.segments.size() == 1) {
+				downloadSegment(channel, state.segments.get(0));
+			} else {
+				downloadSegments(channel);
+			}
+
+			channel.force(false);
+		} catch(RestartException e) {
+			throw e;
+		} catch(IOException | RuntimeException e) {
+			saveState(true);
+			throw e;
+		}
+	}
+
+	private void downloadSegments(FileChannel channel) throws IOException {
+		var futures = new ArrayList<EmptyFuture>();
+
+		for(var segment : state.segments) {
+			if(segment.isDone()) continue;
+			futures.add(thread(AsyncLane.IO, () -> {
+				downloadSegment(channel, segment);
+			}));
+		}
+
+		Throwable throwable = null;
+
+		for(var future : futures) {
+			try {
+				future.awaitDone();
+			} catch(InterruptedException e) {
+				isCancelled = true;
+				throw new InterruptedIOException("Thread was interrupted while downloading!");
+			}
+
+			if(future.getThrowable() != null && throwable == null) {
+				throwable = future.getThrowable();
+
+				// There is no reason to continue if one of segments has failed.
+				isAborted = true;
+			}
+		}
+
+		if(throwable instanceof IOException e) throw e;
+		if(throwable instanceof RuntimeException e) throw e;
+		if(throwable != null) throw new IOException(throwable);
+	}
+
+	private void downloadSegment(FileChannel channel, Segment segment) throws IOException {
+		if(segment.isDone()) return;
+
+		for(int attempt = 1; ; attempt++) {
+			try {
+				transfer(channel, segment);
+				return;
+			} catch(IOException e) {
+				if(isCancelled || isAborted || attempt >= MAX_ATTEMPTS || e instanceof RestartException) {
+					throw e;
+				}
+
+				Log.w(TAG, "Segment has failed, so it'll be retried. Attempt: " + attempt, e);
+
+				try {
+					Thread.sleep(1000L * attempt);
+				} catch(InterruptedException ex) {
+					throw new InterruptedIOException("Thread was interrupted while downloading!");
+				}
+			}
+		}
+	}
+
+	private void transfer(FileChannel channel, Segment segment) throws IOException {
+		var okRequest = createRequest();
+
+		if(state.supportsRanges) {
+			var from = segment.start + segment.downloaded;
+			okRequest.header("Range", "bytes=" + from + "-" + (segment.end >= 0 ? segment.end : ""));
+
+			if(state.validator != null) {
+				okRequest.header("If-Range", state.validator);
+			}
+		} else {
+			// We can't continue, so start from the beginning.
+			// The new body may be shorter, so nothing of the old one should be left.
+			channel.truncate(0);
+			progress.add(-segment.downloaded);
+			segment.downloaded = 0;
+		}
+
+		try(var response = HttpClient.getClient().newCall(okRequest.build()).execute()) {
+			if(!response.isSuccessful()) {
+				throw new IOException("Failed to download a file! Status code: " + response.code());
+			}
+
+			if(state.supportsRanges && response.code() != 206) {
+				throw new RestartException("Server has ignored the range. File may have been changed.");
+			}
+
+			var source = requireNonNull(response.body()).source();
+			var bytes = new byte[BUFFER_SIZE];
+			var position = segment.start + segment.downloaded;
+
+			while(true) {
+				if(isCancelled || isAborted || Thread.interrupted()) {
+					throw new CancelledException("Download was cancelled!");
+				}
+
+				var read = source.read(bytes, 0, segment.end >= 0
+						? (int) Math.min(bytes.length, segment.end - position + 1) : bytes.length);
+
+				if(read <= 0) break;
+
+				var buffer = ByteBuffer.wrap(bytes, 0, read);
+
+				while(buffer.hasRemaining()) {
+					position += channel.write(buffer, position);
+				}
+
+				segment.downloaded += read;
+				progress.add(read);
+				saveState(false);
+			}
+
+			if(segment.end >= 0 && !segment.isDone()) {
+				throw new IOException("Connection was closed before the segment was downloaded!");
+			}
+		}
+	}
+
+	@NonNull
+	private Request.Builder createRequest() {
+		var okRequest = new Request.Builder().url(request.getUrl());
+
+		if(request.getHeaders() != null) {
+			for(var header : request.getHeaders().entrySet()) {
+				okRequest.addHeader(header.getKey(), header.getValue());
+			}
+		}
+
+		return okRequest;
+	}
+
+	/**
+	 * Asks the server about the file, so that we'll know how to split it.
+	 * If the server does not support HEAD requests, then we'll download the file as a whole.
+	 */
+	@NonNull
+	private State probe() throws IOException {
+		try(var response = HttpClient.getClient().newCall(createRequest().head().build()).execute()) {
+			if(!response.isSuccessful()) {
+				return createState(-1, false, null);
+			}
+
+			var length = parseLength(response);
+
+			return createState(length,
+					length > 0 && "bytes".equalsIgnoreCase(response.header("Accept-Ranges")),
+					getValidator(response));
+		}
+	}
+
+	/**
+	 * @param length -1 if unknown
+	 */
+	@NonNull
+	private State createState(long length, boolean supportsRanges, @Nullable String validator) {
+		var state = new State();
+		state.url = request.getUrl();
+		state.length = length;
+		state.supportsRanges = supportsRanges;
+		state.validator = validator;
+
+		state.segments = new ArrayList<>();
+		var count = state.supportsRanges ? (int) Math.max(1, Math.min(MAX_SEGMENTS, state.length / MIN_SEGMENT_SIZE)) : 1;
+		var size = state.length > 0 ? state.length / count : 0;
+
+		for(int i = 0; i < count; i++) {
+			var segment = new Segment();
+			segment.start = i * size;
+			segment.end = (i == count - 1) ? state.length - 1 : (i + 1) * size - 1;
+			state.segments.add(segment);
+		}
+
+		return state;
+	}
+
+	private static long parseLength(@NonNull Response response) {
+		var header = response.header("Content-Length");
+		if(header == null) return -1;
+
+		try {
+			return Long.parseLong(header);
+		} catch(NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Weak ETags aren't allowed in the If-Range, so the Last-Modified is being used instead.
+	 */
+	@Nullable
+	private static String getValidator(@NonNull Response response) {
+		var etag = response.header("ETag");
+
+		if(etag != null && !etag.startsWith("W/")) {
+			return etag;
+		}
+
+		return response.header("Last-Modified");
+	}
+
+	@Nullable
+	private State readState() {
+		if(!stateFile.exists() || !partFile.exists()) {
+			return null;
+		}
+
+		try {
+			var state = Parser.fromString(ADAPTER, FileUtil.readFile(stateFile));
+
+			if(!request.getUrl().equals(state.url) || state.segments == null || state.segments.isEmpty()) {
+				return null;
+			}
+
+			return state;
+		} catch(IOException | RuntimeException e) {
+			Log.e(TAG, "Failed to read the download state, so it'll be started again.", e);
+			return null;
+		}
+	}
+
+	private synchronized void saveState(boolean force) {
+		var now = SystemClock.elapsedRealtime();
+		if(!force && now - lastSaveTime < SAVE_INTERVAL_MS) return;
+		lastSaveTime = now;
+
+		try {
+			FileUtil.createFile(stateFile);
+
+			FileUtil.writeStream(new FileOutputStream(stateFile),
+					Parser.toString(ADAPTER, state).getBytes(StandardCharsets.UTF_8));
+		} catch(IOException e) {
+			Log.e(TAG, "Failed to save the download state!", e);
+		}
+	}
+
+	private static class RestartException extends IOException {
+		public RestartException(String message) {
+			super(message);
+		}
+	}
+
+	public static class State {
+		public String url, validator;
+		public long length;
+		public boolean supportsRanges;
+		public List<Segment> segments;
+
+		public long getDownloaded() {
+			long result = 0;
+
+			for(var segment : segments) {
+				result += segment.downloaded;
+			}
+
+			return result;
+		}
+	}
+
+	public static class Segment {
+		/**
+		 * Both are inclusive. If the end is less than 0, then the length is unknown.
+		 */
+		public long start, end;
+		public volatile long downloaded;
+
+		public boolean isDone() {
+			return end >= 0 && start + downloaded > end;
+		}
+	}
+}
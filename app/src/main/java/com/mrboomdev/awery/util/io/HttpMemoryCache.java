@@ -0,0 +1,235 @@
+package com.mrboomdev.awery.util.io;
+
+import android.os.SystemClock;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mrboomdev.awery.util.async.AsyncFuture;
+import com.mrboomdev.awery.util.async.AsyncUtils;
+import com.mrboomdev.awery.util.async.ControllableAsyncFuture;
+import com.mrboomdev.awery.util.exceptions.CancelledException;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Merges identical requests which are running at the same time into a single call
+ * and keeps recent responses in the memory, if the request has asked for it by {@link HttpRequest#setMemoryCache(int, int)}.
+ * Requests are being considered identical if they have the same method, url, headers and cache mode.
+ * Requests with {@link HttpCacheMode#NETWORK_ONLY} are never being answered from the memory.
+ * Only non-streaming GET and HEAD requests are being shared, because their responses can be read many times.
+ */
+final class HttpMemoryCache {
+	private static final int MAX_SIZE = /* 8mb */ 8 * 1024 * 1024;
+	private static final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+
+	private static final LruCache<String, Entry> cache = new LruCache<>(MAX_SIZE) {
+		@Override
+		protected int sizeOf(@NonNull String key, @NonNull Entry entry) {
+			return key.length() * 2 + entry.response.getBytes().length;
+		}
+	};
+
+	private HttpMemoryCache() {}
+
+	static boolean canShare(@NonNull HttpRequest request) {
+		return !request.isStreaming() && switch(request.getMethod()) {
+			case GET, HEAD -> true;
+			default -> false;
+		};
+	}
+
+	/**
+	 * Should be called only after {@link HttpRequest#checkFields()}, because the method may be not set before it.
+	 */
+	@NonNull
+	static AsyncFuture<HttpResponse> fetch(
+			@NonNull HttpRequest request,
+			@NonNull Function<HttpRequest, AsyncFuture<HttpResponse>> fetcher
+	) {
+		var key = getKey(request);
+
+		if(useMemoryCache(request)) {
+			var entry = cache.get(key);
+
+			if(entry != null) {
+				var age = SystemClock.elapsedRealtime() - entry.time;
+
+				if(age <= request.getMemoryCacheDuration()) {
+					return AsyncUtils.futureNow(entry.response);
+				}
+
+				if(age <= (long) request.getMemoryCacheDuration() + request.getMemoryCacheStaleDuration()) {
+					// Stale response is being returned right now, while a fresh one is being loaded for the next time.
+					join(key, request, fetcher);
+					return AsyncUtils.futureNow(entry.response);
+				}
+
+				cache.remove(key);
+			}
+		}
+
+		return join(key, request, fetcher);
+	}
+
+	@NonNull
+	private static AsyncFuture<HttpResponse> join(
+			@NonNull String key,
+			@NonNull HttpRequest request,
+			@NonNull Function<HttpRequest, AsyncFuture<HttpResponse>> fetcher
+	) {
+		while(true) {
+			var created = new Flight(key, useMemoryCache(request));
+			var flight = inFlight.putIfAbsent(key, created);
+
+			if(flight == null) {
+				var future = created.join();
+
+				// Someone has joined and left before us, so the flight was cancelled.
+				if(future == null) continue;
+
+				created.start(request, fetcher);
+				return future;
+			}
+
+			// The flight may be already finished and removed, but then we'll just get it's result.
+			var future = flight.join();
+			if(future != null) return future;
+		}
+	}
+
+	private static boolean useMemoryCache(@NonNull HttpRequest request) {
+		return request.getMemoryCacheDuration() > 0 && request.getCacheMode() != HttpCacheMode.NETWORK_ONLY;
+	}
+
+	@NonNull
+	private static String getKey(@NonNull HttpRequest request) {
+		var builder = new StringBuilder(request.getMethod().name())
+				.append(' ').append(request.getUrl())
+				.append(' ').append(request.getCacheMode());
+
+		if(request.getHeaders() != null) {
+			var headers = new TreeMap<String, String>();
+
+			for(var header : request.getHeaders().entrySet()) {
+				headers.put(header.getKey().toLowerCase(Locale.ROOT), header.getValue());
+			}
+
+			for(var header : headers.entrySet()) {
+				builder.append('\n').append(header.getKey()).append(':').append(header.getValue());
+			}
+		}
+
+		return builder.toString();
+	}
+
+	private static class Entry {
+		private final HttpResponse response;
+		private final long time;
+
+		public Entry(HttpResponse response, long time) {
+			this.response = response;
+			this.time = time;
+		}
+	}
+
+	/**
+	 * A single call which is being awaited by one or more callers.
+	 * Each caller gets it's own future, so that a cancellation by one caller won't affect others.
+	 * The call itself is being cancelled only after all of the callers did cancel.
+	 */
+	private static class Flight {
+		private final ControllableAsyncFuture<HttpResponse> result = new ControllableAsyncFuture<>();
+		private final String key;
+		private final boolean doCache;
+		private AsyncFuture<HttpResponse> call;
+		private int waiters;
+		private boolean isCancelled;
+
+		public Flight(String key, boolean doCache) {
+			this.key = key;
+			this.doCache = doCache;
+		}
+
+		/**
+		 * @return Null if the flight was cancelled, so a new one should be created
+		 */
+		@Nullable
+		public AsyncFuture<HttpResponse> join() {
+			var future = new ControllableAsyncFuture<HttpResponse>();
+
+			synchronized(this) {
+				if(isCancelled) return null;
+				waiters++;
+			}
+
+			future.onCancelled(this::leave);
+
+			result.addCallback(new AsyncFuture.Callback<>() {
+				@Override
+				public void onSuccess(HttpResponse response) {
+					future.complete(response);
+				}
+
+				@Override
+				public void onFailure(Throwable t) {
+					future.fail(t);
+				}
+			});
+
+			return future;
+		}
+
+		private void leave() {
+			AsyncFuture<HttpResponse> call;
+
+			synchronized(this) {
+				if(--waiters > 0) return;
+
+				isCancelled = true;
+				call = this.call;
+
+				// Removed under the lock, so that nobody could join a cancelled flight.
+				inFlight.remove(key, this);
+			}
+
+			if(call != null) {
+				call.cancel(true);
+			}
+		}
+
+		public void start(@NonNull HttpRequest request, @NonNull Function<HttpRequest, AsyncFuture<HttpResponse>> fetcher) {
+			synchronized(this) {
+				if(isCancelled) {
+					result.fail(new CancelledException("Request was cancelled!"));
+					return;
+				}
+
+				call = fetcher.apply(request);
+			}
+
+			call.addCallback(new AsyncFuture.Callback<>() {
+				@Override
+				public void onSuccess(HttpResponse response) {
+					if(doCache && response.isOk()) {
+						cache.put(key, new Entry(response, SystemClock.elapsedRealtime()));
+					}
+
+					inFlight.remove(key, Flight.this);
+					result.complete(response);
+				}
+
+				@Override
+				public void onFailure(Throwable t) {
+					inFlight.remove(key, Flight.this);
+					result.fail(t);
+				}
+			});
+		}
+	}
+}
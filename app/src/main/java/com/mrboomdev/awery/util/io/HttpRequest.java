@@ -20,7 +20,8 @@ public class HttpRequest {
 	private HttpCacheMode cacheMode;
 	private HttpMethod method;
 	private String url, body;
-	private int cacheTime;
+	private int cacheTime, memoryCacheTime, memoryCacheStaleTime;
+	private boolean isStreaming;
 
 	public HttpRequest(String url) {
 		this.url = url;
@@ -44,6 +45,28 @@ public class HttpRequest {
 		return this;
 	}
 
+	/**
+	 * Keeps the response in the memory, so that the same request will be answered without any io.
+	 * Works only for non-streaming GET and HEAD requests.
+	 * @param duration How long the response is considered fresh, in milliseconds
+	 * @param staleDuration How long after that the old response may still be returned,
+	 *                      while a new one is being loaded in the background
+	 */
+	public HttpRequest setMemoryCache(int duration, int staleDuration) {
+		this.memoryCacheTime = duration;
+		this.memoryCacheStaleTime = staleDuration;
+		return this;
+	}
+
+	/**
+	 * If true, then the body won't be read until you'll request it from the {@link HttpResponse}.
+	 * Don't forget to close the response!
+	 */
+	public HttpRequest setStreaming(boolean isStreaming) {
+		this.isStreaming = isStreaming;
+		return this;
+	}
+
 	public HttpRequest setForm(Map<String, String> map) {
 		if(map == null) {
 			this.form = null;
@@ -126,6 +149,18 @@ public class HttpRequest {
 		return cacheTime;
 	}
 
+	public int getMemoryCacheDuration() {
+		return memoryCacheTime;
+	}
+
+	public int getMemoryCacheStaleDuration() {
+		return memoryCacheStaleTime;
+	}
+
+	public boolean isStreaming() {
+		return isStreaming;
+	}
+
 	public Map<String, String> getHeaders() {
 		return headers;
 	}
@@ -1,32 +1,54 @@
 package com.mrboomdev.awery.util.io;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.caoccao.javet.annotations.V8Function;
 import com.caoccao.javet.annotations.V8Property;
 import com.caoccao.javet.exceptions.JavetException;
 import com.caoccao.javet.values.V8Value;
 import com.caoccao.javet.values.reference.V8ValueFunction;
-import com.mrboomdev.awery.extensions.ExtensionsFactory;
-import com.mrboomdev.awery.extensions.support.aweryjs.AweryJsManager;
+import com.mrboomdev.awery.extensions.support.aweryjs.AweryJsRuntime;
+import com.mrboomdev.awery.util.Parser;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
-import kotlin.UninitializedPropertyAccessException;
+import okhttp3.MediaType;
 import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSource;
 
-public class HttpResponse {
+/**
+ * By default the body is being read as raw bytes and is decoded into a text only if somebody will ask for it.
+ * If the request was made with {@link HttpRequest#setStreaming(boolean)},
+ * then nothing is being read until the body is requested, so it can be consumed directly from the socket.
+ * Such responses must be closed by calling {@link #close()}!
+ */
+public class HttpResponse implements Closeable {
 	private final int code;
 	private final boolean ok;
+	private final MediaType contentType;
+	private Response response;
 	private RuntimeException e;
+	private byte[] bytes;
 	private String text;
 
-	protected HttpResponse(@NonNull Response response) {
+	protected HttpResponse(@NonNull Response response, boolean stream) {
 		this.code = response.code();
 		this.ok = response.isSuccessful();
+		this.contentType = response.body() != null ? response.body().contentType() : null;
 
-		try {
-			this.text = response.body().string();
+		if(stream) {
+			this.response = response;
+			return;
+		}
+
+		try(response) {
+			this.bytes = response.body() != null ? response.body().bytes() : new byte[0];
 		} catch(IOException e) {
 			this.e = new RuntimeException(e);
 		}
@@ -37,37 +59,147 @@ public class HttpResponse {
 		return ok;
 	}
 
+	public boolean isStreaming() {
+		return response != null;
+	}
+
+	/**
+	 * In the streaming mode the source can be consumed only once
+	 * and you cannot call {@link #getBytes()} or {@link #getText()} after that.
+	 */
+	@NonNull
+	public synchronized BufferedSource getSource() {
+		if(e != null) {
+			throw e;
+		}
+
+		if(bytes != null) {
+			return new Buffer().write(bytes);
+		}
+
+		if(response == null || response.body() == null) {
+			throw new IllegalStateException("Body was already consumed!");
+		}
+
+		var source = response.body().source();
+		response = null;
+		return source;
+	}
+
+	@NonNull
+	public InputStream getInputStream() {
+		return getSource().inputStream();
+	}
+
+	/**
+	 * Reads the whole body if it wasn't read yet.
+	 */
+	@NonNull
+	public synchronized byte[] getBytes() {
+		if(e != null) {
+			throw e;
+		}
+
+		if(bytes == null) {
+			try(var source = getSource()) {
+				bytes = source.readByteArray();
+			} catch(IOException e) {
+				this.e = new RuntimeException(e);
+				throw this.e;
+			}
+		}
+
+		return bytes;
+	}
+
+	/**
+	 * Decodes json right from the body without creating an intermediate string.
+	 */
+	@NonNull
+	public <T> T parseJson(@NonNull Parser.Adapter<T> adapter) throws IOException {
+		try(var source = getSource()) {
+			return Parser.fromSource(adapter, source);
+		}
+	}
+
+	@NonNull
+	public <T> T parseJson(@NonNull Class<T> type) throws IOException {
+		return parseJson(Parser.<T>getAdapter(type));
+	}
+
 	/**
 	 * Please, don't use directly in the Java project!
 	 */
 	@SuppressWarnings("unused")
 	@V8Function(name = "json")
 	public V8Value __parseJson() throws JavetException {
-		var factory = ExtensionsFactory.getInstanceNow();
+		var runtime = requireJsRuntime().getV8Runtime();
+		var parser = (V8ValueFunction) runtime.getExecutor("JSON.parse").execute();
+		return parser.call(null, getText().trim());
+	}
 
-		if(factory == null) {
-			throw new UninitializedPropertyAccessException("ExtensionsFactory isn't initialized!");
+	/**
+	 * Please, don't use directly in the Java project!
+	 * Bytes are being copied into the V8 memory at once, without decoding them into a string.
+	 */
+	@SuppressWarnings("unused")
+	@V8Function(name = "arrayBuffer")
+	public V8Value __toArrayBuffer() throws JavetException {
+		var runtime = requireJsRuntime().getV8Runtime();
+		var bytes = getBytes();
+
+		var arrayBuffer = runtime.createV8ValueArrayBuffer(bytes.length);
+		arrayBuffer.fromBytes(bytes);
+		return arrayBuffer;
+	}
+
+	@NonNull
+	private static AweryJsRuntime requireJsRuntime() {
+		var jsRuntime = AweryJsRuntime.current();
+
+		if(jsRuntime == null) {
+			throw new IllegalStateException("Can't create js values outside of an AweryJS runtime!");
 		}
 
-		var runtime = factory.getManager(AweryJsManager.class).jsRuntime.get();
-		var parser = (V8ValueFunction) runtime.getExecutor("JSON.parse").execute();
-		return parser.call(null, getText().trim());
+		return jsRuntime;
 	}
 
 	@V8Function(name = "text")
-	public String getText() {
-		if(e != null) {
-			throw e;
+	public synchronized String getText() {
+		if(text == null) {
+			text = new String(getBytes(), getCharset());
 		}
 
 		return text;
 	}
 
+	@NonNull
+	private Charset getCharset() {
+		var charset = contentType != null ? contentType.charset() : null;
+		return charset != null ? charset : StandardCharsets.UTF_8;
+	}
+
+	@Nullable
+	public MediaType getContentType() {
+		return contentType;
+	}
+
 	@V8Property(name = "status")
 	public int getStatusCode() {
 		return code;
 	}
 
+	/**
+	 * Releases the connection if the body wasn't consumed. Does nothing for the non-streaming responses.
+	 */
+	@Override
+	public synchronized void close() {
+		if(response != null) {
+			response.close();
+			response = null;
+		}
+	}
+
 	@NonNull
 	@Override
 	public String toString() {
@@ -80,4 +212,4 @@ public class HttpResponse {
 				.replace("__TEXT__", getText())
 				.replace("__STATUS_CODE__", String.valueOf(getStatusCode()));
 	}
-}
\ No newline at end of file
+}
@@ -2,15 +2,12 @@ package eu.kanade.tachiyomi.network
 
 import android.content.Context
 import com.mrboomdev.awery.app.data.Constants
-import com.mrboomdev.awery.generated.AwerySettings
+import com.mrboomdev.awery.util.io.HttpClient
 import eu.kanade.tachiyomi.network.interceptor.CloudflareInterceptor
 import eu.kanade.tachiyomi.network.interceptor.UncaughtExceptionInterceptor
 import eu.kanade.tachiyomi.network.interceptor.UserAgentInterceptor
-import okhttp3.Cache
 import okhttp3.OkHttpClient
 import okhttp3.brotli.BrotliInterceptor
-import okhttp3.logging.HttpLoggingInterceptor
-import java.io.File
 import java.util.concurrent.TimeUnit
 
 class NetworkHelper(
@@ -19,30 +16,18 @@ class NetworkHelper(
 
     private val cookieJar = AndroidCookieJar()
 
+    // Derived from the app's client, so that the cache, connections and the dispatcher are shared.
+    // The logging is being inherited too.
     val client: OkHttpClient = run {
-        val builder = OkHttpClient.Builder()
+        val builder = HttpClient.getClient().newBuilder()
             .cookieJar(cookieJar)
             .connectTimeout(30, TimeUnit.SECONDS)
             .readTimeout(30, TimeUnit.SECONDS)
             .callTimeout(2, TimeUnit.MINUTES)
-            .cache(
-                Cache(
-                    directory = File(context.cacheDir, Constants.DIRECTORY_NET_CACHE),
-                    maxSize = 5L * 1024 * 1024, // 5 MiB
-                ),
-            )
             .addInterceptor(BrotliInterceptor)
             .addInterceptor(UncaughtExceptionInterceptor())
             .addInterceptor(UserAgentInterceptor(::defaultUserAgentProvider))
 
-        if(AwerySettings.LOG_NETWORK.value) {
-            val httpLoggingInterceptor = HttpLoggingInterceptor().apply {
-                level = HttpLoggingInterceptor.Level.BODY
-            }
-
-            builder.addNetworkInterceptor(httpLoggingInterceptor)
-        }
-
         builder.addInterceptor(
             CloudflareInterceptor(context, cookieJar, ::defaultUserAgentProvider),
         )
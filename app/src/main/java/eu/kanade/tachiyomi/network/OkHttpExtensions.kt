@@ -1,7 +1,11 @@
 package eu.kanade.tachiyomi.network
 
 import com.mrboomdev.awery.sdk.util.MimeTypes
+import com.mrboomdev.awery.util.io.HostRateLimiter
+import eu.kanade.tachiyomi.network.interceptor.RateLimitInterceptor
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.suspendCancellableCoroutine
 import kotlinx.serialization.DeserializationStrategy
 import kotlinx.serialization.ExperimentalSerializationApi
@@ -15,6 +19,7 @@ import okhttp3.MediaType.Companion.toMediaTypeOrNull
 import okhttp3.OkHttpClient
 import okhttp3.Request
 import okhttp3.Response
+import okhttp3.internal.connection.RealCall
 import rx.Observable
 import rx.Producer
 import rx.Subscription
@@ -64,6 +69,27 @@ fun Call.asObservable(): Observable<Response> {
 // Based on https://github.com/gildor/kotlin-coroutines-okhttp
 @OptIn(ExperimentalCoroutinesApi::class)
 private suspend fun Call.await(callStack: Array<StackTraceElement>): Response {
+    // Wait for a permit here, so that a rate limited call won't block an dispatcher's thread.
+    // Only limits registered by the client of this call are being applied.
+    val limiter = (this as? RealCall)?.client?.interceptors
+        ?.firstNotNullOfOrNull { (it as? RateLimitInterceptor)?.getLimiter(request().url) }
+
+    val rateLimitDelay = if (limiter != null) HostRateLimiter.reserve(this, limiter) else 0L
+
+    if (rateLimitDelay > 0) {
+        try {
+            delay(rateLimitDelay)
+        } catch (e: CancellationException) {
+            // The call wasn't sent, so the permit may be used by someone else.
+            HostRateLimiter.cancelReservation(this)
+            throw e
+        }
+
+        if (isCanceled()) {
+            HostRateLimiter.cancelReservation(this)
+        }
+    }
+
     return suspendCancellableCoroutine { continuation ->
         val callback =
             object : Callback {
@@ -0,0 +1,157 @@
+package eu.kanade.tachiyomi.network.interceptor
+
+import com.mrboomdev.awery.util.io.HttpClient
+import okhttp3.Call
+import okhttp3.Interceptor
+import okhttp3.MediaType
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.ResponseBody.Companion.toResponseBody
+import java.io.IOException
+import java.util.Locale
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Merges identical GET requests of this client which are running at the same time into a single call.
+ * Should be called after all other interceptors were added, so that requests will be compared
+ * with all of their headers and credentials. Each call of this method creates separate calls,
+ * so that different sources will never get responses of each other. Clients derived from this one
+ * by [OkHttpClient.newBuilder] will share them, so they should not add interceptors which change requests.
+ */
+fun OkHttpClient.Builder.coalesceRequests(): OkHttpClient.Builder = addInterceptor(CoalescingInterceptor())
+
+/**
+ * Merges identical GET requests which are running at the same time into a single call,
+ * so that multiple feeds or searches asking for the same page will hit the server only once.
+ *
+ * Only small textual responses are being shared, because they have to be kept in the memory.
+ * If the first call has failed, was cancelled or it's response can't be shared,
+ * then every waiting call is being sent by itself.
+ * Enqueued calls never wait for others, because it would block a dispatcher's thread and it's slot for the host.
+ */
+internal class CoalescingInterceptor : Interceptor {
+    private val inFlight = ConcurrentHashMap<String, Flight>()
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+
+        if (!canShare(request)) {
+            return chain.proceed(request)
+        }
+
+        val key = getKey(request)
+        val created = Flight()
+        val flight = inFlight.putIfAbsent(key, created)
+
+        if (flight != null) {
+            if (HttpClient.isDispatcherThread()) {
+                return chain.proceed(request)
+            }
+
+            val shared = flight.await(chain.call())
+            return shared?.toResponse(request) ?: chain.proceed(request)
+        }
+
+        try {
+            val response = chain.proceed(request)
+            val shared = Shared.of(response)
+            created.complete(shared)
+            return shared?.toResponse(request) ?: response
+        } finally {
+            // Does nothing if was completed already.
+            created.complete(null)
+            inFlight.remove(key, created)
+        }
+    }
+
+    private fun canShare(request: Request): Boolean {
+        return request.method == "GET" && request.body == null && !request.cacheControl.noCache
+    }
+
+    private fun getKey(request: Request): String {
+        val builder = StringBuilder(request.url.toString())
+
+        for (name in request.headers.names().sortedBy { it.lowercase(Locale.ROOT) }) {
+            for (value in request.headers(name)) {
+                builder.append('\n').append(name.lowercase(Locale.ROOT)).append(':').append(value)
+            }
+        }
+
+        return builder.toString()
+    }
+
+    private class Flight {
+        private val latch = CountDownLatch(1)
+
+        @Volatile
+        private var shared: Shared? = null
+
+        fun complete(shared: Shared?) {
+            if (latch.count == 0L) return
+            this.shared = shared
+            latch.countDown()
+        }
+
+        /**
+         * @return Null if the response cannot be shared
+         */
+        fun await(call: Call): Shared? {
+            while (!latch.await(WAIT_STEP_MS, TimeUnit.MILLISECONDS)) {
+                if (call.isCanceled()) {
+                    throw IOException("Canceled")
+                }
+            }
+
+            return shared
+        }
+    }
+
+    private class Shared(
+        private val response: Response,
+        private val bytes: ByteArray,
+        private val contentType: MediaType?,
+    ) {
+        fun toResponse(request: Request): Response {
+            // Each caller gets it's own body, because a body can be read only once.
+            return response.newBuilder()
+                .request(request)
+                .body(bytes.toResponseBody(contentType))
+                .build()
+        }
+
+        companion object {
+            fun of(response: Response): Shared? {
+                if (!response.isSuccessful) return null
+
+                val body = response.body ?: return null
+                val contentType = body.contentType()
+                if (!isText(contentType)) return null
+
+                val source = body.source()
+
+                // Too big to be kept in the memory. The read part stays in the buffer, so the body is still fine.
+                if (source.request(MAX_BODY_SIZE + 1)) return null
+
+                return Shared(response, body.bytes(), contentType)
+            }
+
+            private fun isText(type: MediaType?): Boolean {
+                if (type == null) return false
+                if (type.type == "text") return true
+
+                return type.subtype.let {
+                    it == "json" || it == "xml" || it == "javascript" ||
+                        it.endsWith("+json") || it.endsWith("+xml")
+                }
+            }
+        }
+    }
+
+    companion object {
+        private const val MAX_BODY_SIZE = /* 2mb */ 2L * 1024 * 1024
+        private const val WAIT_STEP_MS = 100L
+    }
+}
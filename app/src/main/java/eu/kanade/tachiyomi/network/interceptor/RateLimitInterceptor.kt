@@ -1,12 +1,11 @@
 package eu.kanade.tachiyomi.network.interceptor
 
-import android.os.SystemClock
+import com.mrboomdev.awery.util.io.HostRateLimiter
+import okhttp3.HttpUrl
 import okhttp3.Interceptor
 import okhttp3.OkHttpClient
 import okhttp3.Response
 import java.io.IOException
-import java.util.ArrayDeque
-import java.util.concurrent.Semaphore
 import java.util.concurrent.TimeUnit
 import kotlin.time.Duration
 import kotlin.time.Duration.Companion.seconds
@@ -38,76 +37,48 @@ fun OkHttpClient.Builder.rateLimit(
     period: Duration = 1.seconds
 ): OkHttpClient.Builder = addInterceptor(RateLimitInterceptor(null, permits, period))
 
-/** We can probably accept domains or wildcards by comparing with [endsWith], etc. */
-@Suppress("PLATFORM_CLASS_MAPPED_TO_KOTLIN")
+/**
+ * Limits are being shared by all clients through [HostRateLimiter], so that each host has a single bucket.
+ * Only calls of clients with this interceptor are being limited by it.
+ * Calls which did wait for a permit before being enqueued (see [Call.await]) aren't being limited twice.
+ * We can probably accept domains or wildcards by comparing with [endsWith], etc.
+ */
 internal class RateLimitInterceptor(
     private val host: String?,
     private val permits: Int,
     period: Duration
 ) : Interceptor {
 
-    private val requestQueue = ArrayDeque<Long>(permits)
     private val rateLimitMillis = period.inWholeMilliseconds
-    private val fairLock = Semaphore(1, true)
 
     override fun intercept(chain: Interceptor.Chain): Response {
         val call = chain.call()
         if (call.isCanceled()) throw IOException("Canceled")
 
         val request = chain.request()
-        when (host) {
-            null, request.url.host -> {} // need rate limit
-            else -> return chain.proceed(request)
-        }
+        val limiter = getLimiter(request.url) ?: return chain.proceed(request)
 
-        try {
-            fairLock.acquire()
-        } catch (e: InterruptedException) {
-            throw IOException(e)
-        }
-
-        val requestQueue = this.requestQueue
-        val timestamp: Long
-
-        try {
-            synchronized(requestQueue) {
-                while (requestQueue.size >= permits) { // queue is full, remove expired entries
-                    val periodStart = SystemClock.elapsedRealtime() - rateLimitMillis
-                    var hasRemovedExpired = false
-                    while (requestQueue.isEmpty().not() && requestQueue.first <= periodStart) {
-                        requestQueue.removeFirst()
-                        hasRemovedExpired = true
-                    }
-                    if (call.isCanceled()) {
-                        throw IOException("Canceled")
-                    } else if (hasRemovedExpired) {
-                        break
-                    } else {
-                        try { // wait for the first entry to expire, or notified by cached response
-                            (requestQueue as Object).wait(requestQueue.first - periodStart)
-                        } catch (_: InterruptedException) {
-                            continue
-                        }
-                    }
-                }
-
-                // add request to queue
-                timestamp = SystemClock.elapsedRealtime()
-                requestQueue.addLast(timestamp)
-            }
-        } finally {
-            fairLock.release()
+        if (!HostRateLimiter.consumePermit(call)) {
+            limiter.acquireBlocking(call)
         }
 
         val response = chain.proceed(request)
-        if (response.networkResponse == null) { // response is cached, remove it from queue
-            synchronized(requestQueue) {
-                if (requestQueue.isEmpty() || timestamp < requestQueue.first) return@synchronized
-                requestQueue.removeFirstOccurrence(timestamp)
-                (requestQueue as Object).notifyAll()
-            }
+        if (response.networkResponse == null) { // response is cached, so the permit wasn't used
+            limiter.refund()
         }
 
         return response
     }
-}
\ No newline at end of file
+
+    /**
+     * @return Null if this interceptor doesn't limit the host of the url
+     */
+    fun getLimiter(url: HttpUrl): HostRateLimiter? {
+        when (host) {
+            null, url.host -> {} // need rate limit
+            else -> return null
+        }
+
+        return HostRateLimiter.get(url.host, permits, rateLimitMillis)
+    }
+}
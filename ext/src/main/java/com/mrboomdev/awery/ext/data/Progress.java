@@ -13,7 +13,7 @@ public class Progress {
 		}
 	};
 
-	private long progress, max;
+	private volatile long progress, max;
 
 	public Progress(long progress, long max) {
 		this.progress = progress;
@@ -38,7 +38,10 @@ public class Progress {
 		this.progress = progress;
 	}
 
-	public void increment() {
+	/**
+	 * Safe to be called from multiple threads at once.
+	 */
+	public synchronized void increment() {
 		this.progress++;
 	}
 
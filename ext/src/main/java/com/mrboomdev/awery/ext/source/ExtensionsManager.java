@@ -3,12 +3,14 @@ package com.mrboomdev.awery.ext.source;
 import com.mrboomdev.awery.ext.data.Progress;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.InputStream;
 import java.util.Collection;
 import java.util.NoSuchElementException;
 
 public abstract class ExtensionsManager {
+	private volatile LoadListener loadListener;
 
 	@NotNull
 	public String getName() {
@@ -47,4 +49,28 @@ public abstract class ExtensionsManager {
 
 	@NotNull
 	public abstract Collection<? extends Extension> getAllExtensions();
+
+	/**
+	 * Listener will be called for each extension right after it was loaded or has failed to load,
+	 * so that nobody would have to wait for all other extensions.
+	 */
+	public void setLoadListener(@Nullable LoadListener listener) {
+		this.loadListener = listener;
+	}
+
+	/**
+	 * Managers should call it for each extension from {@link #loadAllExtensions()},
+	 * even if an extension has failed to load.
+	 */
+	protected void onExtensionLoaded(@NotNull Extension extension) {
+		var listener = loadListener;
+
+		if(listener != null) {
+			listener.onExtensionLoaded(this, extension);
+		}
+	}
+
+	public interface LoadListener {
+		void onExtensionLoaded(ExtensionsManager manager, Extension extension);
+	}
 }
\ No newline at end of file